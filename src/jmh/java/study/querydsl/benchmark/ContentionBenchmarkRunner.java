@@ -0,0 +1,40 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 는 한 번 실행할 때 스레드 수를 하나만 받으므로 1 ~ 64 스레드를 차례로 실행합니다.
+ * 결과는 스레드 수별로 build/reports/jmh/contention-{threads}.json 에 저장합니다.
+ * ./gradlew jmhContention
+ * ./gradlew jmhContention -PjmhArgs="1,8,64"
+ */
+public class ContentionBenchmarkRunner {
+
+    private static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+
+    public static void main(String[] args) throws Exception {
+        String threads = args.length > 0 ? args[0] : DEFAULT_THREADS;
+        String resultDir = args.length > 1 ? args[1] : "build/reports/jmh";
+        new File(resultDir).mkdirs();
+
+        for (String thread : threads.split(",")) {
+            int count = Integer.parseInt(thread.trim());
+            Options options = new OptionsBuilder()
+                    .include(CounterContentionBenchmark.class.getSimpleName())
+                    .include(SequenceContentionBenchmark.class.getSimpleName())
+                    .include(RateLimiterContentionBenchmark.class.getSimpleName())
+                    .threads(count)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir + "/contention-" + count + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
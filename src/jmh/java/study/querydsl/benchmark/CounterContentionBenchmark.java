@@ -0,0 +1,100 @@
+package study.querydsl.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import study.querydsl.concurrency.Counter;
+import study.querydsl.concurrency.LockedCounter;
+import study.querydsl.concurrency.ReentrantHowTo;
+import study.querydsl.concurrency.StripedCounter;
+import study.querydsl.config.LockMetricsProperties;
+import study.querydsl.monitoring.LockMetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 카운터 증가 처리량을 스레드 수별로 비교합니다. 기준선은 ReentrantLock 안에서 int 를 증가시키는 ReentrantHowTo 입니다.
+ * instrumented 는 기본 샘플링 비율(0.1%)로, instrumentedAll 은 모든 획득을 측정하는 InstrumentedLock 으로 locked 와 같은 카운터를 돌려서 측정 비용을 봅니다.
+ * 스레드 수를 바꿔가며 실행하려면 ContentionBenchmarkRunner 를 사용합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CounterContentionBenchmark {
+
+    @Param({"reentrantHowTo", "locked", "instrumented", "instrumentedAll", "striped"})
+    public String counter;
+
+    private Counter target;
+
+    @Setup
+    public void setUp() {
+        switch (counter) {
+            case "reentrantHowTo":
+                // 임계 영역 안의 로그 출력은 락 자체의 비용이 아니므로 끄고 잽니다.
+                ((Logger) LoggerFactory.getLogger(ReentrantHowTo.class)).setLevel(Level.OFF);
+                target = new HowToCounter(new ReentrantHowTo());
+                break;
+            case "locked":
+                target = new LockedCounter();
+                break;
+            case "instrumented":
+                target = new LockedCounter(instrumentedLock(new LockMetricsProperties().getSampleRate()));
+                break;
+            case "instrumentedAll":
+                target = new LockedCounter(instrumentedLock(1.0));
+                break;
+            case "striped":
+                target = new StripedCounter();
+                break;
+            default:
+                throw new IllegalArgumentException(counter);
+        }
+    }
+
+    @Benchmark
+    public void increment() {
+        target.increment();
+    }
+
+    private static Lock instrumentedLock(double sampleRate) {
+        LockMetricsProperties properties = new LockMetricsProperties();
+        properties.setSampleRate(sampleRate);
+        return new LockMetricsRegistry(new SimpleMeterRegistry(), properties).lock("counter");
+    }
+
+    private static class HowToCounter implements Counter {
+
+        private final ReentrantHowTo howTo;
+
+        private HowToCounter(ReentrantHowTo howTo) {
+            this.howTo = howTo;
+        }
+
+        @Override
+        public void add(long delta) {
+            howTo.getCount();
+        }
+
+        @Override
+        public long sum() {
+            return howTo.getCount();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 50,000 건을 읽은 트랜잭션에서 그중 percentModified % 를 수정하고 flush 하는 시간을 잽니다.
+ * 바이트코드 향상(enableDirtyTracking)이 되어 있으면 엔티티가 변경된 필드를 직접 기록하므로
+ * flush 가 스냅샷과 전체 필드를 비교하지 않습니다. 향상 전후를 비교하려면 빌드를 바꿔서 두 번 실행합니다.
+ * ./gradlew jmh -PjmhArgs="FlushBenchmark -p members=50000"
+ * ./gradlew jmh -PjmhArgs="FlushBenchmark -p members=50000" -PhibernateEnhance=false
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class FlushBenchmark {
+
+    @Param({"1", "100"})
+    public int percentModified;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUpTrial(RepositoryBenchmarkState state) {
+        emf = state.getBean(EntityManagerFactory.class);
+    }
+
+    // 조회는 측정에서 빼고 매번 새 영속성 컨텍스트에 회원을 올려둡니다.
+    @Setup(Level.Iteration)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        members = em.createQuery("select m from Member m", Member.class).getResultList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @Benchmark
+    public int modifyAndFlush() {
+        int step = 100 / percentModified;
+        int modified = 0;
+        for (int i = 0; i < members.size(); i += step) {
+            Member member = members.get(i);
+            member.setAge(member.getAge() + 1);
+            modified++;
+        }
+        em.flush();
+        return modified;
+    }
+}
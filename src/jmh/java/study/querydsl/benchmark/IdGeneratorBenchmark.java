@@ -0,0 +1,83 @@
+package study.querydsl.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.entity.Coffee;
+import study.querydsl.entity.Hello;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기본 @GeneratedValue(Hello, hibernate_sequence 를 매번 호출)와
+ * StripedPooledIdGenerator(Coffee, 100개 블록 + 스트라이프)의 id 발급 처리량을 비교합니다.
+ * 스레드 수를 바꿔가며 실행해서 경합에 따른 차이를 확인합니다.
+ * ./gradlew jmh -PjmhArgs="IdGeneratorBenchmark -t 1" (4, 16, 64 ...)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IdGeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Generators {
+
+        IdentifierGenerator sequence;
+        IdentifierGenerator striped;
+        SessionFactory sessionFactory;
+
+        @Setup
+        public void setUp(RepositoryBenchmarkState state) {
+            SessionFactoryImplementor factory = state.getBean(EntityManagerFactory.class).unwrap(SessionFactoryImplementor.class);
+            sessionFactory = factory;
+            sequence = factory.getMetamodel().entityPersister(Hello.class).getIdentifierGenerator();
+            striped = factory.getMetamodel().entityPersister(Coffee.class).getIdentifierGenerator();
+        }
+    }
+
+    // 스레드마다 별도의 세션(커넥션)으로 시퀀스를 호출합니다.
+    @State(Scope.Thread)
+    public static class ThreadSession {
+
+        StatelessSession session;
+
+        @Setup
+        public void setUp(Generators generators) {
+            session = generators.sessionFactory.openStatelessSession();
+        }
+
+        @TearDown
+        public void tearDown() {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Serializable defaultSequence(Generators generators, ThreadSession thread) {
+        return generators.sequence.generate((SharedSessionContractImplementor) thread.session, null);
+    }
+
+    @Benchmark
+    public Serializable stripedPooled(Generators generators, ThreadSession thread) {
+        return generators.striped.generate((SharedSessionContractImplementor) thread.session, null);
+    }
+}
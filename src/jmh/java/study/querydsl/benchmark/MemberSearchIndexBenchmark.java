@@ -0,0 +1,73 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.index.MemberSearchIndex;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 검색 조건을 H2 조회(searchByBuilder)와 메모리 인덱스(MemberSearchIndex)로 처리하는 시간을 비교합니다.
+ * 인덱스는 설정과 관계없이 setUp 에서 직접 만듭니다.
+ * ./gradlew jmh -PjmhArgs="MemberSearchIndexBenchmark -p members=100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MemberSearchIndexBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchIndex memberSearchIndex;
+    private MemberSearchCondition teamAndAge;
+    private MemberSearchCondition username;
+
+    @Setup
+    public void setUp(RepositoryBenchmarkState state) {
+        memberJpaRepository = state.getBean(MemberJpaRepository.class);
+        memberSearchIndex = state.getBean(MemberSearchIndex.class);
+        memberSearchIndex.rebuild();
+
+        teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName(state.teamName(0));
+        teamAndAge.setAgeGoe(30);
+        teamAndAge.setAgeLoe(35);
+
+        username = new MemberSearchCondition();
+        username.setUsername("member" + (state.members / 2));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamAndAge_database() {
+        return memberJpaRepository.searchByBuilder(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamAndAge_index() {
+        return memberSearchIndex.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> username_database() {
+        return memberJpaRepository.searchByBuilder(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> username_index() {
+        return memberSearchIndex.search(username);
+    }
+}
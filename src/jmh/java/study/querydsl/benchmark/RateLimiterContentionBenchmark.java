@@ -0,0 +1,51 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.concurrency.AtomicTokenBucket;
+import study.querydsl.concurrency.LockedTokenBucket;
+import study.querydsl.concurrency.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 토큰 버킷의 tryAcquire 처리량을 스레드 수별로 비교합니다.
+ * 제한이 걸리면 상태를 바꾸지 않고 바로 실패하는 경로만 재게 되므로, 충전 속도를 충분히 크게 잡아서 매번 상태를 갱신하게 합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RateLimiterContentionBenchmark {
+
+    private static final long CAPACITY = 1_000;
+    private static final double PERMITS_PER_SECOND = 1e12;
+
+    @Param({"locked", "atomic"})
+    public String limiter;
+
+    private RateLimiter target;
+
+    @Setup
+    public void setUp() {
+        target = "atomic".equals(limiter)
+                ? new AtomicTokenBucket(CAPACITY, PERMITS_PER_SECOND)
+                : new LockedTokenBucket(CAPACITY, PERMITS_PER_SECOND);
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return target.tryAcquire();
+    }
+}
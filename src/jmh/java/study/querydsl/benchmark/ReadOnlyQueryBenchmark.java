@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 엔티티 전체를 한 트랜잭션에서 읽고 커밋하는 비용을 읽기 전용 모드 유무로 비교합니다.
+ * 일반 모드는 엔티티마다 스냅샷을 만들고 커밋할 때 전부 변경 감지를 하지만,
+ * 읽기 전용 모드(readOnly 트랜잭션으로 세션이 FlushMode.MANUAL + org.hibernate.readOnly 힌트)는 둘 다 생략합니다.
+ * 힙 사용량 차이는 -prof gc 의 gc.alloc.rate.norm (op 당 할당 바이트)으로 확인합니다.
+ * ./gradlew jmh -PjmhArgs="ReadOnlyQueryBenchmark -p members=100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean readOnly;
+
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp(RepositoryBenchmarkState state) {
+        em = state.getBean(EntityManager.class);
+        queryFactory = new JPAQueryFactory(em);
+        transactionTemplate = new TransactionTemplate(state.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(readOnly);
+    }
+
+    @Benchmark
+    public int findAllMembers() {
+        return transactionTemplate.execute(status -> {
+            JPAQuery<Member> query = queryFactory.selectFrom(member);
+            if (readOnly) {
+                query.setHint(QueryHints.HINT_READONLY, true);
+            }
+            return query.fetch().size();
+        });
+    }
+}
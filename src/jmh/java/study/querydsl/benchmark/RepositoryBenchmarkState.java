@@ -0,0 +1,101 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 인메모리 H2 위에 JPA 계층을 띄우고 members, teams 규모만큼 데이터를 넣어둡니다.
+ * 캐시, SQL 로그, p6spy 처럼 측정값을 흐리는 기능은 끄고 실행합니다.
+ * 리포지토리 메트릭도 기본으로 끄며, 비용을 보려면 -p repositoryMetrics=false,true 로 비교합니다.
+ */
+@State(Scope.Benchmark)
+public class RepositoryBenchmarkState {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"10000"})
+    public int members;
+
+    @Param({"10"})
+    public int teams;
+
+    @Param({"false"})
+    public boolean repositoryMetrics;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 커맨드라인 인자로 넘겨야 application.yml 보다 우선 적용됩니다. (local 프로파일의 InitMember 데이터도 넣지 않습니다.)
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--decorator.datasource.enabled=false",
+                        "--query.count-cache.enabled=false",
+                        "--query.search-cache.enabled=false",
+                        "--query.budget.enabled=false",
+                        "--query.second-level-cache.statistics=false",
+                        "--repository.metrics.enabled=" + repositoryMetrics);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public String teamName(int index) {
+        return "team" + index;
+    }
+
+    // em.persist 로 넣으면 수백만 건에서 너무 오래 걸리기 때문에 JDBC 배치로 직접 넣습니다.
+    private void seed() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> teamRows = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            teamRows.add(new Object[]{(long) i + 1, teamName(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teamRows);
+
+        List<Object[]> memberRows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < members; i++) {
+            long memberId = teams + i + 1L;
+            memberRows.add(new Object[]{memberId, "member" + i, i % 100, (long) (i % teams) + 1});
+            if (memberRows.size() == BATCH_SIZE) {
+                insertMembers(jdbcTemplate, memberRows);
+            }
+        }
+        insertMembers(jdbcTemplate, memberRows);
+
+        long nextId = teams + members + 1L;
+        jdbcTemplate.execute("alter sequence team_seq restart with " + nextId);
+        jdbcTemplate.execute("alter sequence member_seq restart with " + nextId);
+    }
+
+    private void insertMembers(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+    }
+}
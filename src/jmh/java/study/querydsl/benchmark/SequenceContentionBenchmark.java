@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import study.querydsl.concurrency.AtomicSequenceAllocator;
+import study.querydsl.concurrency.LockedSequenceAllocator;
+import study.querydsl.concurrency.ReentrantHowTo;
+import study.querydsl.concurrency.SequenceAllocator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 번호 발급 처리량을 스레드 수별로 비교합니다. ReentrantHowTo.getCount() 도 락으로 보호된 번호 발급기입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SequenceContentionBenchmark {
+
+    private static final long BLOCK_SIZE = 100;
+
+    @Param({"reentrantHowTo", "locked", "atomic"})
+    public String allocator;
+
+    private SequenceAllocator target;
+
+    @Setup
+    public void setUp() {
+        switch (allocator) {
+            case "reentrantHowTo":
+                ((Logger) LoggerFactory.getLogger(ReentrantHowTo.class)).setLevel(Level.OFF);
+                ReentrantHowTo howTo = new ReentrantHowTo();
+                target = howTo::getCount;
+                break;
+            case "locked":
+                target = new LockedSequenceAllocator(SequenceAllocator.inMemoryBlockSource(1), BLOCK_SIZE);
+                break;
+            case "atomic":
+                target = new AtomicSequenceAllocator(SequenceAllocator.inMemoryBlockSource(1), BLOCK_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException(allocator);
+        }
+    }
+
+    @Benchmark
+    public long next() {
+        return target.next();
+    }
+}
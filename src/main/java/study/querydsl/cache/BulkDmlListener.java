@@ -0,0 +1,45 @@
+package study.querydsl.cache;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/**
+ * JPQL 벌크 연산(update, delete)은 영속성 컨텍스트와 엔티티 리스너를 거치지 않기 때문에
+ * p6spy 로 실행된 SQL 을 보고 member, team 테이블에 대한 벌크 연산이면 BULK 이벤트를 발행합니다.
+ * 하이버네이트가 엔티티 단건을 수정/삭제할 때 만드는 "where member_id=?" 형태의 SQL 은 엔티티 리스너가 처리하므로 제외합니다.
+ */
+@Component
+public class BulkDmlListener extends SimpleJdbcEventListener {
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^(\\s*/\\*.*?\\*/)*\\s*", Pattern.DOTALL);
+    private static final Pattern MEMBER_TEAM_DML = Pattern.compile(
+            "^(update\\s+(member|team)\\b|delete\\s+(from\\s+)?(member|team)\\b).*", Pattern.DOTALL);
+    private static final Pattern SINGLE_ROW_BY_ID = Pattern.compile(
+            ".*\\swhere\\s+(member_id|team_id)\\s*=\\s*\\?\\s*$", Pattern.DOTALL);
+
+    private final ApplicationEventPublisher publisher;
+
+    public BulkDmlListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (e == null && isBulkDml(statementInformation.getSql())) {
+            publisher.publishEvent(MemberTeamChangedEvent.bulk());
+        }
+    }
+
+    static boolean isBulkDml(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String statement = LEADING_COMMENT.matcher(sql).replaceFirst("").toLowerCase();
+        return MEMBER_TEAM_DML.matcher(statement).matches() && !SINGLE_ROW_BY_ID.matcher(statement).matches();
+    }
+}
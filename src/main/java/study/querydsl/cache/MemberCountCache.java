@@ -0,0 +1,71 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.CountCacheProperties;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.function.LongSupplier;
+
+/**
+ * searchPageComplex 의 전체 개수(count)를 검색 조건별로 캐시합니다.
+ * 페이지를 넘길 때마다 같은 조건의 count 쿼리를 다시 실행하지 않도록 하기 위함입니다.
+ * Member, Team 이 변경되면 모든 count 결과가 영향을 받을 수 있으므로 캐시 전체를 비웁니다.
+ */
+@Component
+public class MemberCountCache implements MeterBinder {
+
+    private final Cache<MemberSearchCacheKey, Long> cache;
+    private final boolean enabled;
+
+    public MemberCountCache(CountCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (!enabled) {
+            return countQuery.getAsLong();
+        }
+        return cache.get(MemberSearchCacheKey.from(condition), key -> countQuery.getAsLong());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onMemberTeamChanged(MemberTeamChangedEvent event) {
+        invalidateAll();
+
+        // flush 시점과 커밋 사이에 다른 요청이 캐시를 다시 채울 수 있으므로 트랜잭션이 끝난 후(커밋, 롤백 모두) 한번 더 비웁니다.
+        // 한 트랜잭션에서 여러 엔티티가 변경되어도 동기화는 한 번만 등록합니다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberCountCache.this);
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "memberCount");
+    }
+}
@@ -0,0 +1,230 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.SearchCacheProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * MemberJpaRepository.search 결과를 검색 조건별로 캐시합니다. (read-through)
+ * <p>
+ * Member, Team 이 변경되면 전체를 비우지 않고 영향을 받을 수 있는 엔트리만 제거합니다.
+ * <ul>
+ *     <li>변경된 회원/팀이 이미 캐시된 결과에 포함되어 있는 경우 (변경 전 상태가 조건에 일치했던 경우)</li>
+ *     <li>변경 후 회원 상태가 검색 조건에 일치하는 경우</li>
+ * </ul>
+ * 벌크 연산은 어떤 row 가 바뀌었는지 알 수 없으므로 전체를 비웁니다.
+ * 변경 중인 트랜잭션 안에서는 커밋되지 않은 데이터가 캐시에 들어가지 않도록 캐시를 사용하지 않고,
+ * 트랜잭션이 끝나면 같은 변경 내역으로 한번 더 제거합니다.
+ * 제거할 때마다 세대(generation)를 올리고, 조회하는 동안 세대가 바뀌었으면 방금 채운 결과를 다시 뺍니다.
+ */
+@Component
+public class MemberSearchCache implements MeterBinder {
+
+    private static final int MAX_PENDING_CHANGES = 1_000;
+
+    private final Cache<MemberSearchCacheKey, List<MemberTeamDto>> cache;
+    private final boolean enabled;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCache(SearchCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher(new MemberSearchResultWeigher())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 캐시된 DTO 는 setter 가 있으므로 꺼낼 때마다 복사해서 돌려줍니다. 반환값을 수정해도 캐시와 다른 요청에는 영향이 없습니다.
+     */
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> search) {
+        if (!enabled || hasPendingChanges()) {
+            return search.get();
+        }
+        MemberSearchCacheKey key = MemberSearchCacheKey.from(condition);
+        long loadGeneration = generation.get();
+        boolean[] loaded = new boolean[1];
+        List<MemberTeamDto> cached = cache.get(key, k -> {
+            loaded[0] = true;
+            return Collections.unmodifiableList(new ArrayList<>(search.get()));
+        });
+        if (loaded[0] && generation.get() != loadGeneration) {
+            // 커밋 전에 시작한 조회가 afterCompletion 의 제거보다 늦게 채웠을 수 있으므로 이 결과는 캐시에 남기지 않습니다.
+            cache.asMap().remove(key, cached);
+        }
+        return copy(cached);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @EventListener
+    public void onMemberTeamChanged(MemberTeamChangedEvent event) {
+        Change change = Change.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(change);
+            return;
+        }
+
+        List<Change> pending = pendingChanges();
+        if (pending.size() == 1 && pending.get(0).isBulk()) {
+            // 이미 전체를 비웠고 트랜잭션이 끝나면 다시 비우므로 엔트리를 확인할 필요가 없습니다.
+            return;
+        }
+        if (pending.size() >= MAX_PENDING_CHANGES) {
+            // 대량 저장처럼 한 트랜잭션에서 많이 바뀌면 엔트리마다 비교하는 것보다 전체를 비우는 것이 저렴합니다.
+            change = Change.BULK;
+            pending.clear();
+        }
+        evict(change);
+        pending.add(change);
+    }
+
+    private void evict(Change change) {
+        if (change.isBulk()) {
+            invalidateAll();
+            return;
+        }
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> change.affects(entry.getKey(), entry.getValue()));
+    }
+
+    private boolean hasPendingChanges() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Change> pendingChanges() {
+        List<Change> changes = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (changes != null) {
+            return changes;
+        }
+
+        List<Change> newChanges = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, newChanges);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchCache.this);
+                newChanges.forEach(MemberSearchCache.this::evict);
+            }
+        });
+        return newChanges;
+    }
+
+    private static List<MemberTeamDto> copy(List<MemberTeamDto> cached) {
+        List<MemberTeamDto> copy = new ArrayList<>(cached.size());
+        for (MemberTeamDto dto : cached) {
+            copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName()));
+        }
+        return copy;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "memberSearch");
+    }
+
+    /**
+     * 이벤트 발생 시점의 엔티티 상태를 복사해 둡니다. 트랜잭션이 끝난 후에도 같은 기준으로 제거하기 위함입니다.
+     */
+    private static class Change {
+
+        static final Change BULK = new Change(true, false, null, null, 0, null, null);
+
+        private final boolean bulk;
+        private final boolean removed;
+        private final Long memberId;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+        private final String teamName;
+
+        private Change(boolean bulk, boolean removed, Long memberId, String username, int age, Long teamId, String teamName) {
+            this.bulk = bulk;
+            this.removed = removed;
+            this.memberId = memberId;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+
+        static Change of(MemberTeamChangedEvent event) {
+            if (event.getType() == MemberTeamChangedEvent.Type.BULK) {
+                return BULK;
+            }
+            boolean removed = event.getType() == MemberTeamChangedEvent.Type.REMOVE;
+            Object entity = event.getEntity();
+            if (entity instanceof Member) {
+                Member member = (Member) entity;
+                Team team = member.getTeam();
+                // 지연 로딩 프록시를 초기화하지 않도록, 로딩되지 않은 팀은 이름을 모르는 것(null)으로 둡니다.
+                String teamName = team != null && Hibernate.isInitialized(team) ? team.getName() : null;
+                return new Change(false, removed, member.getId(), member.getUsername(), member.getAge(), teamId(team), teamName);
+            }
+            if (entity instanceof Team) {
+                Team team = (Team) entity;
+                return new Change(false, removed, null, null, 0, team.getId(), team.getName());
+            }
+            return BULK;
+        }
+
+        boolean isBulk() {
+            return bulk;
+        }
+
+        boolean affects(MemberSearchCacheKey key, List<MemberTeamDto> cached) {
+            for (MemberTeamDto dto : cached) {
+                if (memberId != null ? memberId.equals(dto.getMemberId()) : Objects.equals(teamId, dto.getTeamId())) {
+                    return true;
+                }
+            }
+            if (removed) {
+                return false;
+            }
+            if (memberId == null) {
+                // 팀 이름이 바뀌어 새로 조건에 일치하게 된 경우
+                return key.getTeamName() != null && key.getTeamName().equals(teamName);
+            }
+            return key.matches(username, age, teamId != null, teamName);
+        }
+
+        private static Long teamId(Team team) {
+            if (team instanceof HibernateProxy) {
+                return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+            }
+            return team != null ? team.getId() : null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.cache;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 같은 결과를 내는 검색 조건은 같은 키가 되도록 정규화합니다.
+ * <ul>
+ *     <li>null 과 "", " " 같은 빈 문자열은 조건이 없는 것으로 처리합니다. (usernameEq, teamNameEq와 동일)</li>
+ *     <li>ageGoe > ageLoe 이면 항상 결과가 0건이므로 하나의 빈 범위 키로 합칩니다.</li>
+ * </ul>
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class MemberSearchCacheKey {
+
+    private final String username;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+    private final boolean emptyRange;
+
+    private MemberSearchCacheKey(String username, String teamName, Integer ageGoe, Integer ageLoe, boolean emptyRange) {
+        this.username = username;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+        this.emptyRange = emptyRange;
+    }
+
+    public static MemberSearchCacheKey from(MemberSearchCondition condition) {
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+            return new MemberSearchCacheKey(null, null, null, null, true);
+        }
+        return new MemberSearchCacheKey(
+                normalize(condition.getUsername()),
+                normalize(condition.getTeamName()),
+                ageGoe,
+                ageLoe,
+                false);
+    }
+
+    /**
+     * 주어진 회원 상태가 이 검색 조건에 포함되는지 확인합니다.
+     * teamName 이 null 이면 팀 이름을 알 수 없는 경우로 보고 팀 조건은 일치하는 것으로 처리합니다.
+     */
+    public boolean matches(String username, int age, boolean hasTeam, String teamName) {
+        if (emptyRange) {
+            return false;
+        }
+        if (this.username != null && !this.username.equals(username)) {
+            return false;
+        }
+        if (this.teamName != null && (!hasTeam || (teamName != null && !this.teamName.equals(teamName)))) {
+            return false;
+        }
+        if (ageGoe != null && age < ageGoe) {
+            return false;
+        }
+        return ageLoe == null || age <= ageLoe;
+    }
+
+    // 캐시 메모리 계산에 사용하는 대략적인 크기(byte)입니다.
+    int estimateSize() {
+        return 48 + MemberSearchResultWeigher.stringSize(username) + MemberSearchResultWeigher.stringSize(teamName)
+                + (ageGoe != null ? 16 : 0) + (ageLoe != null ? 16 : 0);
+    }
+
+    private static String normalize(String value) {
+        return hasText(value) ? value : null;
+    }
+}
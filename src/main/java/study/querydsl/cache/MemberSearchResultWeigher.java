@@ -0,0 +1,35 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+
+/**
+ * 검색 결과 캐시 엔트리의 대략적인 힙 사용량(byte)을 계산합니다.
+ * 정확한 값이 아니라 64bit JVM(compressed oops) 기준의 추정치이며, 캐시 전체 메모리 상한을 지키는 용도로 사용합니다.
+ */
+public class MemberSearchResultWeigher implements Weigher<MemberSearchCacheKey, List<MemberTeamDto>> {
+
+    private static final int LIST_OVERHEAD = 40;
+    private static final int REFERENCE = 4;
+    private static final int DTO_OVERHEAD = 40;
+    private static final int BOXED_LONG = 16;
+
+    @Override
+    public int weigh(MemberSearchCacheKey key, List<MemberTeamDto> value) {
+        long size = key.estimateSize() + LIST_OVERHEAD;
+        for (MemberTeamDto dto : value) {
+            size += REFERENCE + DTO_OVERHEAD
+                    + (dto.getMemberId() != null ? BOXED_LONG : 0)
+                    + (dto.getTeamId() != null ? BOXED_LONG : 0)
+                    + stringSize(dto.getUsername())
+                    + stringSize(dto.getTeamName());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    static int stringSize(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.cache;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA 엔티티 리스너입니다.
+ * 하이버네이트가 스프링 빈 컨테이너를 통해서 생성하기 때문에 생성자 주입을 받을 수 있습니다.
+ */
+public class MemberTeamChangeListener {
+
+    // 엔티티마다 이벤트를 발행하지 않는 트랜잭션에 묶어두는 리소스 키입니다.
+    private static final Object SUPPRESSED = new Object();
+
+    private final ApplicationEventPublisher publisher;
+
+    public MemberTeamChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 현재 트랜잭션에서는 엔티티마다 이벤트를 발행하지 않고 BULK 이벤트 하나로 대신합니다.
+     * 대량 등록처럼 한 트랜잭션에서 엔티티를 많이 저장할 때 캐시와 인덱스가 엔티티마다 일하지 않게 하기 위함입니다.
+     * BULK 이벤트를 받은 쪽은 트랜잭션이 끝난 후에 한 번 더 비우거나 다시 만듭니다.
+     */
+    public static void publishBulkInsteadOfEntityEvents(ApplicationEventPublisher publisher) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No active transaction to publish a bulk change for");
+        }
+        if (TransactionSynchronizationManager.hasResource(SUPPRESSED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SUPPRESSED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SUPPRESSED);
+            }
+        });
+        publisher.publishEvent(MemberTeamChangedEvent.bulk());
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        publish(entity, MemberTeamChangedEvent.Type.PERSIST);
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        publish(entity, MemberTeamChangedEvent.Type.UPDATE);
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        publish(entity, MemberTeamChangedEvent.Type.REMOVE);
+    }
+
+    private void publish(Object entity, MemberTeamChangedEvent.Type type) {
+        if (!TransactionSynchronizationManager.hasResource(SUPPRESSED)) {
+            publisher.publishEvent(new MemberTeamChangedEvent(entity, type));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+
+/**
+ * Member, Team 엔티티가 저장/수정/삭제 되었을 때 발행되는 이벤트입니다.
+ * BULK 는 JPQL/네이티브 벌크 연산처럼 어떤 엔티티가 바뀌었는지 알 수 없는 경우이며 entity 는 null 입니다.
+ */
+@Getter
+public class MemberTeamChangedEvent {
+
+    public enum Type { PERSIST, UPDATE, REMOVE, BULK }
+
+    private final Object entity;
+    private final Type type;
+
+    public MemberTeamChangedEvent(Object entity, Type type) {
+        this.entity = entity;
+        this.type = type;
+    }
+
+    public static MemberTeamChangedEvent bulk() {
+        return new MemberTeamChangedEvent(null, Type.BULK);
+    }
+}
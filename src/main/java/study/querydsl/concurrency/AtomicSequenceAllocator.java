@@ -0,0 +1,56 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 블록 안에서 번호를 나눠주는 경로는 getAndIncrement 하나로 끝나는 락 없는 구현입니다.
+ * 블록이 바닥났을 때만 synchronized 로 한 스레드가 새 블록을 받아옵니다.
+ * 여러 스레드가 동시에 새 블록을 받아오면 블록 소스(DB 시퀀스 등)를 쓸데없이 여러 번 호출하게 되므로 이 부분만 직렬화합니다.
+ */
+public class AtomicSequenceAllocator implements SequenceAllocator {
+
+    private final LongUnaryOperator blockSource;
+    private final long blockSize;
+    private volatile Block block;
+
+    public AtomicSequenceAllocator(LongUnaryOperator blockSource, long blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+        this.block = new Block(0, 0);
+    }
+
+    @Override
+    public long next() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        // 기다리는 동안 다른 스레드가 이미 새 블록을 받아왔으면 그 블록을 사용합니다.
+        if (block == exhausted) {
+            long start = blockSource.applyAsLong(blockSize);
+            block = new Block(start, start + blockSize);
+        }
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 락 없이 동작하는 토큰 버킷입니다.
+ * 남은 토큰 수와 마지막 충전 시각을 따로 두지 않고, "버킷이 가득 차는 시각"(tat) 하나만 AtomicLong 에 저장합니다. (GCRA)
+ * 토큰 하나는 interval 나노초에 해당하므로 tat - now 가 곧 사용 중인 토큰 양이고, 이 값이 capacity 를 넘지 않을 때만 CAS 로 tat 를 밀어냅니다.
+ */
+public class AtomicTokenBucket implements RateLimiter {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong tat;
+
+    public AtomicTokenBucket(long capacity, double permitsPerSecond) {
+        this(capacity, permitsPerSecond, System::nanoTime);
+    }
+
+    public AtomicTokenBucket(long capacity, double permitsPerSecond, LongSupplier nanoClock) {
+        if (capacity <= 0 || permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and permitsPerSecond must be positive");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.nanoClock = nanoClock;
+        // 처음에는 버킷이 가득 찬 상태로 시작합니다.
+        this.tat = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        long cost = permits * intervalNanos;
+        long limit = capacity * intervalNanos;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = tat.get();
+            long next = Math.max(current, now) + cost;
+            if (next - now > limit) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.concurrency;
+
+public interface Counter {
+
+    void add(long delta);
+
+    default void increment() {
+        add(1);
+    }
+
+    // 동시에 add 가 진행 중이면 그 값의 일부만 반영된 근사값일 수 있습니다.
+    long sum();
+}
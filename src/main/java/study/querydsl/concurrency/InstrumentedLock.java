@@ -0,0 +1,127 @@
+package study.querydsl.concurrency;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ReentrantLock 을 감싸서 락을 얻기까지 기다린 시간, 락을 잡고 있던 시간, 락을 요청할 때 대기 중이던 스레드 수를 기록합니다.
+ * <p>
+ * 모든 획득을 재면 nanoTime, getQueueLength 와 타이머 기록이 임계 영역보다 비싸지므로 평균 1/sampleRate 번에 한 번만 기록합니다.
+ * 측정 여부는 기다리기 전에 스레드별 난수(ThreadLocalRandom)로 정하고, 측정하지 않는 획득은 ReentrantLock 을 그대로 호출합니다.
+ * 재진입한 경우에는 가장 바깥의 lock/unlock 만 세며, Condition.await 로 락을 잠시 놓는 동안도 잡고 있던 시간에 포함됩니다.
+ */
+public class InstrumentedLock implements Lock {
+
+    private final String name;
+    private final ReentrantLock delegate;
+    private final int samplePeriod;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+    private final DistributionSummary queueLength;
+
+    // 락을 가진 스레드만 읽고 쓰므로 락이 가시성을 보장합니다.
+    private long holdStartNanos;
+
+    public InstrumentedLock(String name, ReentrantLock delegate, double sampleRate,
+                            Timer waitTimer, Timer holdTimer, DistributionSummary queueLength) {
+        this.name = name;
+        this.delegate = delegate;
+        this.samplePeriod = sampleRate <= 0 ? 0 : (int) Math.max(1, Math.round(1 / sampleRate));
+        this.waitTimer = waitTimer;
+        this.holdTimer = holdTimer;
+        this.queueLength = queueLength;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void lock() {
+        if (!sampled()) {
+            delegate.lock();
+            return;
+        }
+        int queued = delegate.getQueueLength();
+        long start = System.nanoTime();
+        delegate.lock();
+        acquired(start, queued);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!sampled()) {
+            delegate.lockInterruptibly();
+            return;
+        }
+        int queued = delegate.getQueueLength();
+        long start = System.nanoTime();
+        delegate.lockInterruptibly();
+        acquired(start, queued);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!sampled()) {
+            return delegate.tryLock();
+        }
+        long start = System.nanoTime();
+        if (!delegate.tryLock()) {
+            return false;
+        }
+        acquired(start, 0);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (!sampled()) {
+            return delegate.tryLock(time, unit);
+        }
+        int queued = delegate.getQueueLength();
+        long start = System.nanoTime();
+        if (!delegate.tryLock(time, unit)) {
+            // 시간 안에 얻지 못한 대기도 기다린 시간에 넣습니다.
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            queueLength.record(queued);
+            return false;
+        }
+        acquired(start, queued);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (holdStartNanos != 0 && delegate.getHoldCount() == 1) {
+            holdTimer.record(System.nanoTime() - holdStartNanos, TimeUnit.NANOSECONDS);
+            holdStartNanos = 0;
+        }
+        delegate.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return delegate.newCondition();
+    }
+
+    // 스레드마다 따로 난수를 뽑으므로 공유 상태를 건드리지 않고, 주기적인 작업과 박자가 맞아 같은 호출만 측정되는 일도 없습니다.
+    private boolean sampled() {
+        return samplePeriod > 0 && (samplePeriod == 1 || ThreadLocalRandom.current().nextInt(samplePeriod) == 0);
+    }
+
+    private void acquired(long start, int queued) {
+        if (delegate.getHoldCount() > 1) {
+            return;
+        }
+        long now = System.nanoTime();
+        waitTimer.record(now - start, TimeUnit.NANOSECONDS);
+        queueLength.record(queued);
+        holdStartNanos = now;
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ReentrantLock 하나로 값을 보호하는 카운터입니다. 모든 호출이 같은 락을 두고 경쟁합니다.
+public class LockedCounter implements Counter {
+
+    private final Lock lock;
+    private long value;
+
+    public LockedCounter() {
+        this(new ReentrantLock());
+    }
+
+    // 락 경합을 측정하려면 InstrumentedLock 을 넘깁니다.
+    public LockedCounter(Lock lock) {
+        this.lock = lock;
+    }
+
+    @Override
+    public void add(long delta) {
+        lock.lock();
+        try {
+            value += delta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long sum() {
+        lock.lock();
+        try {
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongUnaryOperator;
+
+// 현재 블록의 다음 값과 끝 값을 락으로 보호합니다. 블록을 새로 받아오는 동안에도 다른 스레드는 기다립니다.
+public class LockedSequenceAllocator implements SequenceAllocator {
+
+    private final Lock lock;
+    private final LongUnaryOperator blockSource;
+    private final long blockSize;
+
+    private long next;
+    private long end;
+
+    public LockedSequenceAllocator(LongUnaryOperator blockSource, long blockSize) {
+        this(blockSource, blockSize, new ReentrantLock());
+    }
+
+    // 락 경합을 측정하려면 InstrumentedLock 을 넘깁니다.
+    public LockedSequenceAllocator(LongUnaryOperator blockSource, long blockSize, Lock lock) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.lock = lock;
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long next() {
+        lock.lock();
+        try {
+            if (next == end) {
+                next = blockSource.applyAsLong(blockSize);
+                end = next + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// 남은 토큰 수와 마지막 충전 시각을 락으로 보호하는 일반적인 토큰 버킷입니다.
+public class LockedTokenBucket implements RateLimiter {
+
+    private final Lock lock;
+    private final long capacity;
+    private final double permitsPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public LockedTokenBucket(long capacity, double permitsPerSecond) {
+        this(capacity, permitsPerSecond, System::nanoTime);
+    }
+
+    public LockedTokenBucket(long capacity, double permitsPerSecond, LongSupplier nanoClock) {
+        this(capacity, permitsPerSecond, nanoClock, new ReentrantLock());
+    }
+
+    // 락 경합을 측정하려면 InstrumentedLock 을 넘깁니다.
+    public LockedTokenBucket(long capacity, double permitsPerSecond, LongSupplier nanoClock, Lock lock) {
+        if (capacity <= 0 || permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and permitsPerSecond must be positive");
+        }
+        this.lock = lock;
+        this.capacity = capacity;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+            if (tokens < permits) {
+                return false;
+            }
+            tokens -= permits;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
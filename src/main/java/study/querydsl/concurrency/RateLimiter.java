@@ -0,0 +1,11 @@
+package study.querydsl.concurrency;
+
+public interface RateLimiter {
+
+    // 토큰이 부족하면 기다리지 않고 false 를 반환합니다.
+    boolean tryAcquire(int permits);
+
+    default boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * blockSource 에서 blockSize 크기의 블록 시작 값을 받아와서 그 안에서 번호를 나눠줍니다.
+ * (DB 시퀀스를 increment_size 만큼 한 번에 증가시키는 pooled-lo 방식과 같습니다.)
+ */
+public interface SequenceAllocator {
+
+    long next();
+
+    // blockSize 를 받아서 그만큼 예약된 블록의 시작 값을 반환하는 소스입니다. 메모리 안에서만 쓰는 기본 구현입니다.
+    static LongUnaryOperator inMemoryBlockSource(long start) {
+        AtomicLong next = new AtomicLong(start);
+        return next::getAndAdd;
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.concurrency;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LongAdder 처럼 값을 여러 칸(stripe)에 나눠서 더하는 락 없는 카운터입니다.
+ * 스레드마다 다른 칸을 CAS 로 갱신하므로 경쟁이 적고, sum() 은 모든 칸을 더해서 구합니다.
+ * 칸끼리 같은 캐시 라인을 쓰지 않도록(false sharing) 칸 사이를 PADDING 만큼 띄웁니다.
+ */
+public class StripedCounter implements Counter {
+
+    // long 8 바이트 * 16 = 128 바이트. 인접 캐시 라인 프리페치까지 고려해서 두 라인을 띄웁니다.
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public StripedCounter(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.mask = Math.max(size, 1) - 1;
+        this.cells = new AtomicLongArray((mask + 1) * PADDING);
+    }
+
+    @Override
+    public void add(long delta) {
+        int stripe = stripe((int) Thread.currentThread().getId());
+        // CAS 에 실패하면 다른 스레드가 같은 칸을 쓰고 있는 것이므로 다른 칸으로 옮겨서 다시 시도합니다.
+        while (true) {
+            int index = stripe * PADDING;
+            long current = cells.get(index);
+            if (cells.compareAndSet(index, current, current + delta)) {
+                return;
+            }
+            stripe = stripe(ThreadLocalRandom.current().nextInt());
+        }
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            sum += cells.get(stripe * PADDING);
+        }
+        return sum;
+    }
+
+    private int stripe(int hash) {
+        // 스레드 id 가 연속이어도 칸이 고르게 나뉘도록 섞습니다.
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,11 @@
+package study.querydsl.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// 스레드 풀은 AsyncPageExecutor 가 직접 만들고 관리합니다.
+// Executor 빈을 등록하면 스프링 부트의 applicationTaskExecutor(MVC 비동기 요청, 스트리밍 응답에서 사용)가 만들어지지 않기 때문입니다.
+@Configuration
+@EnableConfigurationProperties(AsyncPagingProperties.class)
+public class AsyncPagingConfig {
+}
@@ -0,0 +1,20 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.async-paging")
+public class AsyncPagingProperties {
+
+    // true 이면 페이징 조회 시 콘텐츠 쿼리와 count 쿼리를 동시에 실행합니다.
+    private boolean enabled = false;
+    private int poolSize = 8;
+    private int queueCapacity = 100;
+    private Duration timeout = Duration.ofSeconds(5);
+
+}
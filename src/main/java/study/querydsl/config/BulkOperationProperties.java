@@ -0,0 +1,18 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.bulk")
+public class BulkOperationProperties {
+
+    // 한 트랜잭션에서 처리하는 id 범위의 크기. 청크가 작을수록 락을 잡는 시간이 짧아집니다.
+    private long chunkSize = 1_000;
+
+    // 초당 실행할 최대 청크 수. 0 이하면 제한하지 않습니다.
+    private double chunksPerSecond = 0;
+
+}
@@ -0,0 +1,17 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "concurrency.lock-metrics")
+public class LockMetricsProperties {
+
+    // 측정할 락 획득의 비율 (0 ~ 1). 0 이면 측정하지 않습니다.
+    // 측정 한 번에 수백 ns 가 들므로 임계 영역이 수십 ns 인 락은 0.001 이하로 둬야 처리량이 몇 % 안에서 유지됩니다.
+    // 측정하지 않는 획득도 측정 여부를 정하는 난수 하나(수 ns)는 듭니다.
+    private double sampleRate = 0.001;
+
+}
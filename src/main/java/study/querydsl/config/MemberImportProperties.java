@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.import")
+public class MemberImportProperties {
+
+    // 한 번에 파싱하고 한 트랜잭션으로 커밋하는 row 수
+    private int chunkSize = 10_000;
+
+    // 이 건수마다 flush/clear 합니다. hibernate.jdbc.batch_size 와 맞춰야 배치가 꽉 찬 상태로 전송됩니다.
+    private int flushSize = 1_000;
+
+    // 동시에 파싱할 수 있는 청크 수
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+}
@@ -0,0 +1,18 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.member-index")
+public class MemberIndexProperties {
+
+    // 켜면 /v1/members 검색(MemberJpaRepository.search)을 DB 대신 메모리 인덱스에서 처리합니다.
+    private boolean enabled = false;
+
+    // 한 트랜잭션에서 이보다 많이 바뀌면 하나씩 반영하지 않고 커밋 후 전체를 다시 읽습니다.
+    private int maxPendingChanges = 1000;
+
+}
@@ -0,0 +1,48 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.budget")
+public class QueryBudgetProperties {
+
+    public enum Mode { LOG, FAIL }
+
+    private boolean enabled = true;
+
+    // LOG: 경고 로그만 남깁니다. FAIL: 예산을 넘는 SQL을 실행하지 않고 예외를 던집니다.
+    private Mode mode = Mode.LOG;
+
+    // 한 HTTP 요청에서 실행할 수 있는 최대 SQL 수
+    private int maxStatements = 20;
+
+    // 같은 모양의 SQL을 같은 파라미터로 다시 실행하는 것을 위반으로 볼지 여부
+    private boolean detectDuplicates = true;
+
+    // 같은 모양의 SQL을 파라미터와 관계없이 한 요청에서 실행할 수 있는 최대 횟수. 넘으면 N+1 로 봅니다.
+    // (지연 로딩된 team 을 회원마다 select ... where team_id=? 로 읽는 경우) 0 이하면 검사하지 않습니다.
+    private int maxRepetitions = 5;
+
+    // 엔드포인트별 설정입니다. 키는 /actuator/querybudget 과 같은 "POST /v1/members/import" 형식이고,
+    // 공백과 / 가 들어가므로 yml 에서는 "[POST /v1/members/import]" 처럼 대괄호로 감쌉니다.
+    private Map<String, EndpointBudget> endpoints = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class EndpointBudget {
+
+        // false 이면 이 엔드포인트의 SQL 은 세지 않습니다.
+        private boolean enabled = true;
+
+        // 비어 있으면 전체 설정을 따릅니다.
+        private Integer maxStatements;
+        private Boolean detectDuplicates;
+        private Integer maxRepetitions;
+    }
+}
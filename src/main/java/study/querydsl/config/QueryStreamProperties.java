@@ -0,0 +1,15 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.stream")
+public class QueryStreamProperties {
+
+    // JDBC 드라이버가 한 번에 가져오는 row 수
+    private int fetchSize = 500;
+
+}
@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.monitoring.RepositoryMetrics;
+import study.querydsl.monitoring.RepositoryMetricsPostProcessor;
+
+@Configuration
+@EnableConfigurationProperties(RepositoryMetricsProperties.class)
+public class RepositoryMetricsConfig {
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 선언하고 RepositoryMetrics 는 나중에 꺼냅니다.
+    @Bean
+    @ConditionalOnProperty(prefix = "repository.metrics", name = "enabled", matchIfMissing = true)
+    public static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> metrics) {
+        return new RepositoryMetricsPostProcessor(metrics);
+    }
+}
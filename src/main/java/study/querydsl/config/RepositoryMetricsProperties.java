@@ -0,0 +1,15 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "repository.metrics")
+public class RepositoryMetricsProperties {
+
+    // false 면 @MonitoredRepository 클래스에 프록시를 씌우지 않습니다.
+    private boolean enabled = true;
+
+}
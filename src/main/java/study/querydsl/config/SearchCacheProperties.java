@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.search-cache")
+public class SearchCacheProperties {
+
+    private boolean enabled = true;
+
+    // 엔트리 개수가 아니라 캐시된 결과의 추정 메모리 크기로 제한합니다.
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+    private Duration ttl = Duration.ofMinutes(10);
+
+}
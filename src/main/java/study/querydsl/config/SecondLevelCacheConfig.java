@@ -0,0 +1,71 @@
+package study.querydsl.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    public static final String TEAM_REGION = "team";
+    public static final String COFFEE_REGION = "coffee";
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(SecondLevelCacheProperties properties) {
+        return hibernateProperties -> {
+            // hibernate-jcache 가 클래스패스에 있으면 설정하지 않아도 자동으로 켜지므로 꺼둘 때도 명시합니다.
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+            // 캐시하는 쿼리가 없으므로 쿼리 캐시는 끕니다. 켜두면 테이블을 수정할 때마다 수정 시각 리전을 갱신합니다.
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isStatistics());
+            if (!properties.isEnabled()) {
+                return;
+            }
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(properties));
+            // 크기 제한 없이 리전이 만들어지지 않도록 설정에 없는 리전은 시작할 때 실패시킵니다.
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    // SessionFactory가 닫힐 때 Hibernate가 CacheManager도 함께 닫습니다.
+    private CacheManager createCacheManager(SecondLevelCacheProperties properties) {
+        // 테스트처럼 한 JVM에 컨텍스트가 여러 개 떠도 캐시를 공유하지 않도록 매번 새 CacheManager를 만듭니다.
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader(), new Properties());
+
+        // 코드에서 사용하는 리전은 설정이 없어도 defaults 로 만들고, 설정에만 있는 리전도 함께 만듭니다.
+        Set<String> regionNames = new LinkedHashSet<>();
+        regionNames.add(TEAM_REGION);
+        regionNames.add(COFFEE_REGION);
+        regionNames.addAll(properties.getRegions().keySet());
+        for (String regionName : regionNames) {
+            SecondLevelCacheProperties.Region region = properties.getRegions().getOrDefault(regionName, properties.getDefaults());
+            cacheManager.createCache(regionName, regionConfiguration(region, properties.isStatistics()));
+        }
+        return cacheManager;
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration(SecondLevelCacheProperties.Region region, boolean statistics) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+        configuration.setStatisticsEnabled(statistics);
+        return configuration;
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.second-level-cache")
+public class SecondLevelCacheProperties {
+
+    private boolean enabled = true;
+
+    // hibernate.generate_statistics 와 캐시별 통계를 함께 켭니다. (actuator hibernate.* 메트릭)
+    private boolean statistics = false;
+
+    // regions 에 따로 설정하지 않은 리전에 사용합니다.
+    private Region defaults = new Region();
+
+    // 엔티티의 @Cache(region = ...) 이름을 키로 사용합니다.
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofHours(1);
+
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.slow-explain")
+public class SlowQueryExplainProperties {
+
+    private boolean enabled = true;
+
+    // 이보다 오래 걸린 select 의 실행 계획을 남깁니다.
+    private Duration threshold = Duration.ofMillis(500);
+
+    // 이 테이블을 조회하는 select 만 대상입니다.
+    private List<String> tables = new ArrayList<>(Arrays.asList("member", "team"));
+
+    // EXPLAIN ANALYZE 는 쿼리를 한 번 더 실행하므로 전체 실행 횟수와 같은 SQL 모양의 재실행 간격을 제한합니다.
+    private double permitsPerSecond = 0.2;
+    private int burst = 3;
+    private Duration minInterval = Duration.ofMinutes(1);
+
+    // 실행 대기열 크기. 가득 차면 버립니다.
+    private int queueCapacity = 10;
+
+    // SQL 모양별로 보관할 최근 실행 계획 수와 SQL 모양의 최대 개수
+    private int plansPerFingerprint = 5;
+    private int maxFingerprints = 200;
+
+}
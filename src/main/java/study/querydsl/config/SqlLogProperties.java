@@ -0,0 +1,36 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.sql-log")
+public class SqlLogProperties {
+
+    // FULL: 지금처럼 p6spy/Hibernate 가 요청 스레드에서 문장마다 로그를 남깁니다.
+    // SAMPLED: 샘플링된 SQL 과 느린 SQL 만 백그라운드 스레드가 남기고, 나머지는 SQL 모양별 통계로만 집계합니다.
+    public enum Mode { FULL, SAMPLED }
+
+    private Mode mode = Mode.FULL;
+
+    // 로그로 남길 SQL 의 비율 (0 ~ 1)
+    private double sampleRate = 0.01;
+
+    // 이보다 오래 걸린 SQL 과 실패한 SQL 은 샘플링과 상관없이 남깁니다.
+    private Duration slowThreshold = Duration.ofMillis(100);
+
+    // 요청 스레드와 로그 스레드 사이 버퍼 크기. 가득 차면 요청 스레드를 막지 않고 버립니다.
+    private int bufferSize = 8192;
+
+    // SQL 모양별 통계를 로그로 남기는 주기와 개수
+    private Duration summaryInterval = Duration.ofMinutes(1);
+    private int summaryTop = 20;
+
+    // 집계할 SQL 모양의 최대 개수. 넘으면 나머지는 "other" 로 합칩니다.
+    private int maxFingerprints = 1000;
+
+}
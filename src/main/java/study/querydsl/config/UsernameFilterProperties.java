@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "query.username-filter")
+public class UsernameFilterProperties {
+
+    // 켜면 없는 회원명으로 findByUsername 을 호출했을 때 SQL 없이 빈 결과를 반환합니다.
+    private boolean enabled = false;
+
+    // 목표 오탐률입니다. 낮출수록 비트 배열과 해시 횟수가 늘어납니다.
+    private double falsePositiveRate = 0.01;
+
+    // 필터 크기는 max(이 값, 기동 시 회원 수 * 2) 로 정하고, 그만큼 새 회원명이 추가되면 다시 만듭니다.
+    private int expectedInsertions = 100_000;
+
+}
@@ -0,0 +1,23 @@
+package study.querydsl.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.monitoring.QueryBudgetInterceptor;
+
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final QueryBudgetInterceptor queryBudgetInterceptor;
+
+    public WebConfig(QueryBudgetInterceptor queryBudgetInterceptor) {
+        this.queryBudgetInterceptor = queryBudgetInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryBudgetInterceptor);
+    }
+}
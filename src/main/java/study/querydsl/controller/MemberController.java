@@ -1,23 +1,41 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    // Pageable 의 기본값(spring.data.web.pageable.default-page-size / max-page-size)과 같게 맞춥니다.
+    static final int DEFAULT_SLICE_SIZE = 20;
+    static final int MAX_SLICE_SIZE = 2000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
 
 
     @GetMapping("/v1/members")
@@ -25,6 +43,32 @@ public class MemberController {
         return  memberJpaRepository.search(condition);
     }
 
+    // 결과를 메모리에 모으지 않고 한 줄에 하나의 JSON(NDJSON)으로 바로 응답에 씁니다.
+    @GetMapping(value = "/v1/members/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> searchMemberV1Stream(MemberSearchCondition condition){
+        StreamingResponseBody body = out -> {
+            BufferedOutputStream buffer = new BufferedOutputStream(out);
+            try {
+                memberJpaRepository.streamSearch(condition, dto -> writeLine(buffer, dto));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            buffer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, MemberTeamDto dto) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // 페이징 처리를 위한 메소드
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
@@ -38,6 +82,22 @@ public class MemberController {
         return  memberRepository.searchPageComplex(condition, pageable);
     }
 
+    // 커서 기반(keyset) 페이징을 위한 메소드
+    @GetMapping("/v4/members")
+    public CursorSlice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size){
+        return  memberRepository.searchSlice(condition, MemberCursor.decode(cursor), sliceSize(size));
+    }
+
+    // Pageable 처럼 1보다 작으면 기본값, 최대값보다 크면 최대값으로 조회합니다.
+    private int sliceSize(int size) {
+        if (size < 1) {
+            return DEFAULT_SLICE_SIZE;
+        }
+        return Math.min(size, MAX_SLICE_SIZE);
+    }
+
 
 
 
@@ -0,0 +1,27 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.service.MemberImportFormat;
+import study.querydsl.service.MemberImportService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+@RequiredArgsConstructor
+@RestController
+public class MemberImportController {
+
+    private final MemberImportService memberImportService;
+
+    // 요청 본문을 통째로 읽지 않고 스트림으로 받아서 처리합니다.
+    @PostMapping(value = "/v1/members/import", consumes = {"text/csv", "application/x-ndjson"})
+    public MemberImportResult importMembers(@RequestHeader("Content-Type") MediaType contentType,
+                                            HttpServletRequest request) throws IOException {
+        return memberImportService.importMembers(request.getInputStream(), MemberImportFormat.from(contentType));
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkProgress {
+
+    private final String operation;
+    private final long chunksDone;
+    private final long totalChunks;
+    private final long rows;
+    // 마지막으로 처리한 청크의 끝 id 와 전체 범위의 끝 id
+    private final Long lastId;
+    private final Long maxId;
+    private final long elapsedMillis;
+
+    public static BulkProgress empty(String operation) {
+        return new BulkProgress(operation, 0, 0, 0, null, null, 0);
+    }
+
+    public boolean isDone() {
+        return chunksDone == totalChunks;
+    }
+
+    public double getPercent() {
+        return totalChunks == 0 ? 100.0 : chunksDone * 100.0 / totalChunks;
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+
+    // 다음 페이지가 없으면 null 입니다.
+    private final String nextCursor;
+
+}
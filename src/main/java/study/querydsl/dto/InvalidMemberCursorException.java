@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 클라이언트가 보낸 커서가 잘못된 것이므로 500 이 아니라 400 으로 응답합니다.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidMemberCursorException extends IllegalArgumentException {
+
+    public InvalidMemberCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징에서 사용하는 커서입니다.
+ * 마지막으로 조회한 회원의 id를 기준으로 다음 페이지를 조회하며, 클라이언트에게는 Base64로 인코딩된 불투명한 문자열로 전달합니다.
+ */
+@Data
+public class MemberCursor {
+
+    private final Long lastMemberId;
+
+    public static MemberCursor of(Long lastMemberId) {
+        return new MemberCursor(lastMemberId);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastMemberId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 커서가 없으면 첫 페이지를 의미하므로 null을 반환합니다.
+    public static MemberCursor decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new MemberCursor(Long.valueOf(decoded));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMemberCursorException("Invalid member cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportResult {
+
+    private final long rows;
+    private final long teamsCreated;
+    private final long elapsedMillis;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+    }
+}
@@ -4,7 +4,13 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import study.querydsl.config.SecondLevelCacheConfig;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -13,10 +19,15 @@ import javax.persistence.Id;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.COFFEE_REGION)
 public class Coffee {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "coffee_id_generator")
+    @GenericGenerator(name = "coffee_id_generator", strategy = "study.querydsl.entity.id.StripedPooledIdGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "coffee_seq"),
+                          @Parameter(name = "increment_size", value = "100")})
     private Long id;
 
     private String name;
@@ -1,17 +1,32 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import study.querydsl.cache.MemberTeamChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age")})
+@NamedEntityGraph(name = Member.GRAPH_WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
+@EntityListeners(MemberTeamChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
+
+    public static final String GRAPH_WITH_TEAM = "Member.team";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_id_generator")
+    @GenericGenerator(name = "member_id_generator", strategy = "study.querydsl.entity.id.StripedPooledIdGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "member_seq"),
+                          @Parameter(name = "increment_size", value = "100")})
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -1,22 +1,39 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import study.querydsl.cache.MemberTeamChangeListener;
+import study.querydsl.config.SecondLevelCacheConfig;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TEAM_REGION)
+// 회원의 team 프록시를 초기화할 때 아직 로딩되지 않은 팀들을 IN 절로 한 번에 가져옵니다.
+@BatchSize(size = 100)
+@EntityListeners(MemberTeamChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_id_generator")
+    @GenericGenerator(name = "team_id_generator", strategy = "study.querydsl.entity.id.StripedPooledIdGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "team_seq"),
+                          @Parameter(name = "increment_size", value = "100")})
     @Column(name = "team_id")
     private Long id;
     private String name;
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
     public Team(String name) {
@@ -0,0 +1,92 @@
+package study.querydsl.entity.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시퀀스에서 increment_size 만큼의 id 블록을 예약하고(pooled-lo: 시퀀스 값 v 는 [v, v + increment_size) 를 의미),
+ * 예약된 블록을 스레드별 스트라이프에서 lock 없이 나눠줍니다.
+ * <p>
+ * 기본 @GeneratedValue 는 insert 마다 시퀀스를 한 번씩 호출하고, 하이버네이트의 pooled 옵티마이저는 하나의 synchronized 카운터를 공유합니다.
+ * 이 생성기는 블록이 소진된 스트라이프만 잠깐 잠그고 시퀀스를 호출하므로 동시 insert 가 하나의 카운터에서 직렬화되지 않습니다.
+ * 스레드마다 다른 블록을 사용하기 때문에 id 가 스레드 간에는 생성 순서대로 증가하지 않을 수 있습니다.
+ * <p>
+ * 스키마 생성(시퀀스 생성 DDL)과 설정은 SequenceStyleGenerator 를 그대로 사용합니다.
+ * <pre>
+ * &#64;GenericGenerator(name = "member_id", strategy = "study.querydsl.entity.id.StripedPooledIdGenerator",
+ *         parameters = {&#64;Parameter(name = "sequence_name", value = "member_seq"),
+ *                       &#64;Parameter(name = "increment_size", value = "100")})
+ * </pre>
+ */
+public class StripedPooledIdGenerator extends SequenceStyleGenerator {
+
+    private static final int STRIPES = stripeCount();
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public StripedPooledIdGenerator() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Stripe stripe = stripes[stripeIndex(Thread.currentThread())];
+        while (true) {
+            Block block = stripe.block;
+            if (block != null) {
+                long id = block.next.getAndIncrement();
+                if (id < block.limit) {
+                    return id;
+                }
+            }
+            refill(stripe, block, session);
+        }
+    }
+
+    private void refill(Stripe stripe, Block exhausted, SharedSessionContractImplementor session) {
+        synchronized (stripe) {
+            // 다른 스레드가 먼저 새 블록을 채웠으면 그대로 사용합니다.
+            if (stripe.block == exhausted) {
+                long low = getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue();
+                stripe.block = new Block(low, low + getDatabaseStructure().getIncrementSize());
+            }
+        }
+    }
+
+    static int stripeIndex(Thread thread) {
+        return (int) (thread.getId() & (STRIPES - 1));
+    }
+
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return false;
+    }
+
+    static int stripeCount() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        private volatile Block block;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long low, long limit) {
+            this.next = new AtomicLong(low);
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 문자열용 Bloom filter 입니다. 여러 스레드가 락 없이 동시에 추가하고 조회할 수 있습니다.
+ * <p>
+ * 비트 수 m = -n ln(p) / (ln 2)^2, 해시 수 k = m / n * ln 2 로 정하고,
+ * 64비트 해시 두 개를 h1 + i * h2 로 조합해서 k 개의 위치를 만듭니다. (Kirsch-Mitzenmacher)
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final int expectedInsertions;
+    private final LongAdder bitsSet = new LongAdder();
+    private final LongAdder insertions = new LongAdder();
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * @return 새로 켠 비트가 있으면 true (처음 보는 값일 가능성이 높음)
+     */
+    boolean add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0) {
+                if (words.compareAndSet(index, word, word | mask)) {
+                    bitsSet.increment();
+                    changed = true;
+                    break;
+                }
+                word = words.get(index);
+            }
+        }
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    /**
+     * false 면 한 번도 추가되지 않은 값입니다. true 는 오탐일 수 있습니다.
+     */
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 켜진 비트 비율로 계산한 현재 오탐률 추정치입니다. 삭제, 이름 변경으로 남은 비트도 포함됩니다.
+    double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.sum() / numBits, numHashes);
+    }
+
+    boolean isSaturated() {
+        return insertions.sum() > expectedInsertions;
+    }
+
+    long getNumBits() {
+        return numBits;
+    }
+
+    int getNumHashes() {
+        return numHashes;
+    }
+
+    private static long hash(String value) {
+        // 조회마다 바이트 배열을 만들지 않도록 char 단위 FNV-1a 로 훑은 뒤 murmur3 의 fmix64 로 비트를 섞습니다.
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
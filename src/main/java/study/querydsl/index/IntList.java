@@ -0,0 +1,55 @@
+package study.querydsl.index;
+
+import java.util.Arrays;
+
+/**
+ * Integer 박싱 없이 행 번호를 담는 가변 길이 int 배열입니다. 순서는 보장하지 않습니다.
+ */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    // 마지막 값을 빈 자리로 옮겨서 지웁니다.
+    boolean remove(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void replace(int oldValue, int newValue) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == oldValue) {
+                values[i] = newValue;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package study.querydsl.index;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.index.LongIntHashMap.MISSING;
+
+/**
+ * 회원을 컬럼별 기본형 배열에 담아두고 MemberSearchCondition 에 맞는 행을 찾습니다. 동기화는 MemberSearchIndex 가 합니다.
+ * <ul>
+ *     <li>ids, ages, teamCodes, usernames: 행 번호로 접근하는 컬럼입니다. 지운 행 자리에는 마지막 행을 옮겨서 빈틈 없이 유지합니다.</li>
+ *     <li>팀은 team_id 마다 코드(0, 1, 2 ...)를 붙여서 회원 행에는 int 코드만 두고, 팀 id 와 이름은 코드별로 한 번만 저장합니다.</li>
+ *     <li>ageKeys: (나이 << 32 | 행 번호) 를 정렬한 배열입니다. 나이 범위는 이진 탐색으로 찾습니다.</li>
+ *     <li>rowsByUsername, rowsByTeam, codesByTeamName: 회원명, 팀 코드, 팀명으로 행 번호와 팀 코드를 찾습니다.</li>
+ * </ul>
+ */
+final class MemberColumns {
+
+    // LongIntHashMap.MISSING(-1) 과 구분해야 하므로 -2 를 씁니다.
+    static final int NO_TEAM = -2;
+
+    private long[] ids;
+    private int[] ages;
+    private int[] teamCodes;
+    private String[] usernames;
+    private int size;
+
+    private long[] ageKeys;
+    private int ageKeyCount;
+
+    private final LongIntHashMap rowById;
+    private final Map<String, IntList> rowsByUsername;
+
+    private long[] teamIds;
+    private String[] teamNames;
+    private IntList[] rowsByTeam;
+    private int teamCount;
+    private final LongIntHashMap codeByTeamId;
+    private final Map<String, IntList> codesByTeamName = new HashMap<>();
+
+    MemberColumns(int expectedMembers, int expectedTeams) {
+        int capacity = Math.max(16, expectedMembers);
+        ids = new long[capacity];
+        ages = new int[capacity];
+        teamCodes = new int[capacity];
+        usernames = new String[capacity];
+        ageKeys = new long[capacity];
+        rowById = new LongIntHashMap(capacity);
+        rowsByUsername = new HashMap<>(capacity * 4 / 3 + 1);
+
+        int teamCapacity = Math.max(16, expectedTeams);
+        teamIds = new long[teamCapacity];
+        teamNames = new String[teamCapacity];
+        rowsByTeam = new IntList[teamCapacity];
+        codeByTeamId = new LongIntHashMap(teamCapacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean hasTeam(long teamId) {
+        return codeByTeamId.get(teamId) != MISSING;
+    }
+
+    void putTeam(long teamId, String name) {
+        int code = codeByTeamId.get(teamId);
+        if (code == MISSING) {
+            if (teamCount == teamIds.length) {
+                int capacity = teamCount * 2;
+                teamIds = Arrays.copyOf(teamIds, capacity);
+                teamNames = Arrays.copyOf(teamNames, capacity);
+                rowsByTeam = Arrays.copyOf(rowsByTeam, capacity);
+            }
+            code = teamCount++;
+            teamIds[code] = teamId;
+            rowsByTeam[code] = new IntList();
+            codeByTeamId.put(teamId, code);
+        } else if (Objects.equals(teamNames[code], name)) {
+            return;
+        } else {
+            remove(codesByTeamName, teamNames[code], code);
+        }
+        teamNames[code] = name;
+        add(codesByTeamName, name, code);
+    }
+
+    // 코드는 재사용하지 않고 팀 id 와 이름만 사전에서 뺍니다. 그 팀의 회원은 먼저 팀이 바뀌었거나 지워졌어야 합니다.
+    void removeTeam(long teamId) {
+        int code = codeByTeamId.get(teamId);
+        if (code == MISSING) {
+            return;
+        }
+        remove(codesByTeamName, teamNames[code], code);
+        teamNames[code] = null;
+        codeByTeamId.remove(teamId);
+    }
+
+    /**
+     * 회원을 추가하거나 바뀐 컬럼만 고칩니다. teamId 가 null 이면 팀이 없는 회원입니다.
+     *
+     * @return 팀이 사전에 없으면 아무것도 바꾸지 않고 false
+     */
+    boolean putMember(long id, String username, int age, Long teamId) {
+        int teamCode = teamCode(teamId);
+        if (teamCode == MISSING) {
+            return false;
+        }
+        int row = rowById.get(id);
+        if (row == MISSING) {
+            row = appendRow(id, username, age, teamCode);
+            insertAgeKey(ageKey(age, row));
+            return true;
+        }
+
+        if (!Objects.equals(usernames[row], username)) {
+            remove(rowsByUsername, usernames[row], row);
+            usernames[row] = username;
+            add(rowsByUsername, username, row);
+        }
+        if (teamCodes[row] != teamCode) {
+            if (teamCodes[row] != NO_TEAM) {
+                rowsByTeam[teamCodes[row]].remove(row);
+            }
+            teamCodes[row] = teamCode;
+            if (teamCode != NO_TEAM) {
+                rowsByTeam[teamCode].add(row);
+            }
+        }
+        if (ages[row] != age) {
+            removeAgeKey(ageKey(ages[row], row));
+            ages[row] = age;
+            insertAgeKey(ageKey(age, row));
+        }
+        return true;
+    }
+
+    /**
+     * 전체를 새로 읽을 때 씁니다. 나이 인덱스는 행마다 끼워 넣지 않고 sortAgeIndex() 에서 한 번에 정렬합니다.
+     */
+    boolean appendMember(long id, String username, int age, Long teamId) {
+        int teamCode = teamCode(teamId);
+        if (teamCode == MISSING) {
+            return false;
+        }
+        appendRow(id, username, age, teamCode);
+        return true;
+    }
+
+    void sortAgeIndex() {
+        for (int row = 0; row < size; row++) {
+            ageKeys[row] = ageKey(ages[row], row);
+        }
+        Arrays.sort(ageKeys, 0, size);
+        ageKeyCount = size;
+    }
+
+    void removeMember(long id) {
+        int row = rowById.get(id);
+        if (row == MISSING) {
+            return;
+        }
+        remove(rowsByUsername, usernames[row], row);
+        if (teamCodes[row] != NO_TEAM) {
+            rowsByTeam[teamCodes[row]].remove(row);
+        }
+        removeAgeKey(ageKey(ages[row], row));
+        rowById.remove(id);
+
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            ages[row] = ages[last];
+            teamCodes[row] = teamCodes[last];
+            usernames[row] = usernames[last];
+            rowById.put(ids[row], row);
+            replace(rowsByUsername, usernames[row], last, row);
+            if (teamCodes[row] != NO_TEAM) {
+                rowsByTeam[teamCodes[row]].replace(last, row);
+            }
+            removeAgeKey(ageKey(ages[row], last));
+            insertAgeKey(ageKey(ages[row], row));
+        }
+        usernames[last] = null;
+    }
+
+    /**
+     * MemberJpaRepository.search 와 같은 조건으로 찾습니다. 빈 문자열은 조건이 없는 것으로 봅니다.
+     * 회원명이 있으면 회원명 목록, 팀명이 있으면 팀 행 목록과 나이 범위 중 짧은 쪽, 나이만 있으면 나이 범위를 훑고 나머지 조건은 컬럼 값으로 거릅니다.
+     */
+    List<MemberTeamDto> search(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        String usernameCondition = hasText(username) ? username : null;
+        String teamCondition = hasText(teamName) ? teamName : null;
+        int minAge = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+        int maxAge = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+        if (minAge > maxAge) {
+            return result;
+        }
+
+        if (usernameCondition != null) {
+            IntList rows = rowsByUsername.get(usernameCondition);
+            for (int i = 0; rows != null && i < rows.size(); i++) {
+                int row = rows.get(i);
+                if (teamMatches(row, teamCondition) && ages[row] >= minAge && ages[row] <= maxAge) {
+                    result.add(toDto(row));
+                }
+            }
+            return result;
+        }
+
+        boolean ageFiltered = ageGoe != null || ageLoe != null;
+        int ageFrom = ageFiltered ? lowerBound(ageKey(minAge, 0)) : 0;
+        // 행 번호는 0 이상 int 이므로 같은 나이의 마지막 키는 (나이 << 32 | Integer.MAX_VALUE) 입니다.
+        int ageTo = ageFiltered ? lowerBound((((long) maxAge) << 32) + Integer.MAX_VALUE + 1) : size;
+
+        if (teamCondition != null) {
+            IntList codes = codesByTeamName.get(teamCondition);
+            if (codes == null) {
+                return result;
+            }
+            int teamRows = 0;
+            for (int i = 0; i < codes.size(); i++) {
+                teamRows += rowsByTeam[codes.get(i)].size();
+            }
+            if (teamRows <= ageTo - ageFrom) {
+                for (int i = 0; i < codes.size(); i++) {
+                    IntList rows = rowsByTeam[codes.get(i)];
+                    for (int j = 0; j < rows.size(); j++) {
+                        int row = rows.get(j);
+                        if (ages[row] >= minAge && ages[row] <= maxAge) {
+                            result.add(toDto(row));
+                        }
+                    }
+                }
+                return result;
+            }
+        }
+
+        if (ageFiltered) {
+            for (int i = ageFrom; i < ageTo; i++) {
+                int row = (int) ageKeys[i];
+                if (teamMatches(row, teamCondition)) {
+                    result.add(toDto(row));
+                }
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                if (teamMatches(row, teamCondition)) {
+                    result.add(toDto(row));
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean teamMatches(int row, String teamName) {
+        return teamName == null || (teamCodes[row] != NO_TEAM && teamName.equals(teamNames[teamCodes[row]]));
+    }
+
+    private MemberTeamDto toDto(int row) {
+        int teamCode = teamCodes[row];
+        return teamCode == NO_TEAM
+                ? new MemberTeamDto(ids[row], usernames[row], ages[row], null, null)
+                : new MemberTeamDto(ids[row], usernames[row], ages[row], teamIds[teamCode], teamNames[teamCode]);
+    }
+
+    private int teamCode(Long teamId) {
+        return teamId == null ? NO_TEAM : codeByTeamId.get(teamId);
+    }
+
+    private int appendRow(long id, String username, int age, int teamCode) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamCodes = Arrays.copyOf(teamCodes, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            ageKeys = Arrays.copyOf(ageKeys, capacity);
+        }
+        int row = size++;
+        ids[row] = id;
+        ages[row] = age;
+        teamCodes[row] = teamCode;
+        usernames[row] = username;
+        rowById.put(id, row);
+        add(rowsByUsername, username, row);
+        if (teamCode != NO_TEAM) {
+            rowsByTeam[teamCode].add(row);
+        }
+        return row;
+    }
+
+    private static long ageKey(int age, int row) {
+        return ((long) age << 32) | row;
+    }
+
+    // key 이상인 첫 위치
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = ageKeyCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ageKeys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertAgeKey(long key) {
+        int position = lowerBound(key);
+        System.arraycopy(ageKeys, position, ageKeys, position + 1, ageKeyCount - position);
+        ageKeys[position] = key;
+        ageKeyCount++;
+    }
+
+    private void removeAgeKey(long key) {
+        int position = lowerBound(key);
+        if (position < ageKeyCount && ageKeys[position] == key) {
+            System.arraycopy(ageKeys, position + 1, ageKeys, position, ageKeyCount - position - 1);
+            ageKeyCount--;
+        }
+    }
+
+    // 이름이 null 인 행은 이름으로 찾을 일이 없으므로 목록에 넣지 않습니다.
+    private static void add(Map<String, IntList> index, String key, int value) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new IntList(1)).add(value);
+        }
+    }
+
+    private static void remove(Map<String, IntList> index, String key, int value) {
+        IntList values = key == null ? null : index.get(key);
+        if (values != null && values.remove(value) && values.size() == 0) {
+            index.remove(key);
+        }
+    }
+
+    private static void replace(Map<String, IntList> index, String key, int oldValue, int newValue) {
+        IntList values = key == null ? null : index.get(key);
+        if (values != null) {
+            values.replace(oldValue, newValue);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.cache.MemberTeamChangedEvent;
+import study.querydsl.config.MemberIndexProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색용 메모리 인덱스입니다. 데이터는 MemberColumns 에 컬럼별 기본형 배열로 담습니다.
+ * <p>
+ * 애플리케이션이 뜨면 백그라운드에서 member, team 을 한 번 읽어서 만들고, 이후에는 엔티티 리스너의 MemberTeamChangedEvent 로 맞춥니다.
+ * <ul>
+ *     <li>트랜잭션 안의 변경은 모아뒀다가 커밋된 경우에만 반영합니다. 쓰기 트랜잭션 안의 검색은 DB 로 보냅니다.</li>
+ *     <li>벌크 연산, 너무 많은 변경, 사전에 없는 팀을 가리키는 회원처럼 하나씩 맞출 수 없는 변경이 오면 전체를 다시 읽고, 그동안의 검색은 DB 로 보냅니다.</li>
+ *     <li>다시 읽는 동안 커밋된 변경은 새 인덱스에 한번 더 반영합니다. 변경은 모두 최종 상태를 덮어쓰는 방식이라 두 번 반영해도 결과가 같습니다.</li>
+ * </ul>
+ * 읽기는 read lock 을 나눠 잡고, 변경과 교체만 write lock 을 잡습니다.
+ */
+@Slf4j
+@Component
+public class MemberSearchIndex {
+
+    private final MemberIndexProperties properties;
+    private final EntityManagerFactory emf;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    // 아래 필드는 lock 으로 보호합니다. ready 는 검색마다 확인하므로 volatile 로 둡니다.
+    private MemberColumns columns = new MemberColumns(0, 0);
+    private volatile boolean ready;
+    // 다시 읽는 중이면 그동안 커밋된 변경을 모읍니다.
+    private List<Change> replay;
+
+    public MemberSearchIndex(MemberIndexProperties properties, EntityManagerFactory emf) {
+        this.properties = properties;
+        this.emf = emf;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 인덱스가 켜져 있고, 다 만들어졌고, 현재 트랜잭션이 읽기 전용이며 반영되지 않은 변경이 없을 때만 true 입니다.
+     */
+    public boolean isReady() {
+        return properties.isEnabled() && ready && !hasPendingChanges();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            return columns.search(condition.getUsername(), condition.getTeamName(), condition.getAgeGoe(), condition.getAgeLoe());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * DB 에서 전체를 다시 읽어서 교체합니다. 보통은 백그라운드 스레드에서 실행되며, 끝날 때까지 호출한 스레드를 막습니다.
+     */
+    public synchronized void rebuild() {
+        rebuildScheduled.set(false);
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        MemberColumns fresh;
+        try {
+            fresh = load();
+        } catch (RuntimeException e) {
+            log.warn("[member-index] failed to load members, searches fall back to the database", e);
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        boolean consistent;
+        lock.writeLock().lock();
+        try {
+            consistent = applyAll(fresh, replay);
+            replay = null;
+            columns = fresh;
+            ready = consistent;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!consistent) {
+            requestRebuild();
+        }
+        log.info("[member-index] loaded {} members in {} ms", fresh.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @EventListener
+    public void onMemberTeamChanged(MemberTeamChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Change change = Change.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Collections.singletonList(change));
+            return;
+        }
+
+        List<Change> pending = pendingChanges();
+        if (pending.size() == 1 && pending.get(0).isBulk()) {
+            return;
+        }
+        if (pending.size() >= properties.getMaxPendingChanges()) {
+            pending.clear();
+            change = Change.BULK;
+        }
+        pending.add(change);
+    }
+
+    private void apply(List<Change> changes) {
+        boolean stale = false;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.addAll(changes);
+            } else if (ready && !applyAll(columns, changes)) {
+                ready = false;
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (stale) {
+            requestRebuild();
+        }
+    }
+
+    private static boolean applyAll(MemberColumns target, List<Change> changes) {
+        for (Change change : changes) {
+            if (!change.applyTo(target)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void requestRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuildIfScheduled);
+        }
+    }
+
+    // 요청이 쌓여있는 동안 누군가 rebuild() 를 직접 끝냈으면 다시 읽지 않습니다.
+    private synchronized void rebuildIfScheduled() {
+        if (rebuildScheduled.get()) {
+            rebuild();
+        }
+    }
+
+    private MemberColumns load() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            List<Tuple> teams = queryFactory
+                    .select(team.id, team.name)
+                    .from(team)
+                    .fetch();
+            List<Tuple> members = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .fetch();
+
+            MemberColumns fresh = new MemberColumns(members.size(), teams.size());
+            for (Tuple row : teams) {
+                fresh.putTeam(row.get(team.id), row.get(team.name));
+            }
+            for (Tuple row : members) {
+                Integer age = row.get(member.age);
+                if (!fresh.appendMember(row.get(member.id), row.get(member.username), age == null ? 0 : age,
+                        row.get(member.team.id))) {
+                    throw new IllegalStateException("member " + row.get(member.id) + " refers to an unknown team");
+                }
+            }
+            fresh.sortAgeIndex();
+            return fresh;
+        } finally {
+            em.close();
+        }
+    }
+
+    // 쓰기 트랜잭션에는 아직 flush 되지 않은 변경이 있을 수 있으므로 읽기 전용 트랜잭션이거나 트랜잭션 밖일 때만 인덱스를 씁니다.
+    private boolean hasPendingChanges() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && (TransactionSynchronizationManager.hasResource(this)
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Change> pendingChanges() {
+        List<Change> changes = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (changes != null) {
+            return changes;
+        }
+
+        List<Change> newChanges = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, newChanges);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchIndex.this);
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    apply(newChanges);
+                }
+            }
+        });
+        return newChanges;
+    }
+
+    /**
+     * 이벤트 발생 시점의 엔티티 상태를 복사해 둡니다.
+     */
+    private static class Change {
+
+        static final Change BULK = new Change(null, null, false, null, null, 0, null, null);
+
+        private final Class<?> entityType;
+        private final MemberTeamChangedEvent.Type type;
+        private final boolean removed;
+        private final Long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+        private final String teamName;
+
+        private Change(Class<?> entityType, MemberTeamChangedEvent.Type type, boolean removed,
+                       Long id, String username, int age, Long teamId, String teamName) {
+            this.entityType = entityType;
+            this.type = type;
+            this.removed = removed;
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+
+        static Change of(MemberTeamChangedEvent event) {
+            boolean removed = event.getType() == MemberTeamChangedEvent.Type.REMOVE;
+            Object entity = event.getEntity();
+            if (entity instanceof Member) {
+                Member changed = (Member) entity;
+                Team changedTeam = changed.getTeam();
+                // 지연 로딩 프록시는 초기화하지 않고 id 만 꺼냅니다. 이름은 인덱스의 팀 사전에서 찾습니다.
+                Long teamId = null;
+                String teamName = null;
+                if (changedTeam instanceof HibernateProxy) {
+                    HibernateProxy proxy = (HibernateProxy) changedTeam;
+                    teamId = (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+                    if (!proxy.getHibernateLazyInitializer().isUninitialized()) {
+                        teamName = changedTeam.getName();
+                    }
+                } else if (changedTeam != null) {
+                    teamId = changedTeam.getId();
+                    teamName = changedTeam.getName();
+                }
+                return new Change(Member.class, event.getType(), removed, changed.getId(), changed.getUsername(),
+                        changed.getAge(), teamId, teamName);
+            }
+            if (entity instanceof Team) {
+                Team changed = (Team) entity;
+                return new Change(Team.class, event.getType(), removed, changed.getId(), null, 0, null, changed.getName());
+            }
+            return BULK;
+        }
+
+        boolean isBulk() {
+            return entityType == null;
+        }
+
+        // 하나씩 맞출 수 없으면 false 를 반환합니다.
+        boolean applyTo(MemberColumns target) {
+            if (isBulk() || id == null) {
+                return false;
+            }
+            if (entityType == Team.class) {
+                if (removed) {
+                    target.removeTeam(id);
+                } else {
+                    target.putTeam(id, teamName);
+                }
+                return true;
+            }
+            if (removed) {
+                target.removeMember(id);
+                return true;
+            }
+            if (teamId != null && teamName != null) {
+                target.putTeam(teamId, teamName);
+            }
+            return target.putMember(id, username, age, teamId);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.cache.MemberTeamChangedEvent;
+import study.querydsl.config.UsernameFilterProperties;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * Member.username 에 대한 Bloom filter 입니다. 필터에 없는 회원명은 DB 를 조회하지 않고 빈 결과를 반환합니다.
+ * <p>
+ * 애플리케이션이 뜨면 백그라운드에서 회원명을 모두 읽어서 만들고, 이후에는 엔티티 리스너의 MemberTeamChangedEvent 로 회원명을 추가합니다.
+ * <ul>
+ *     <li>추가는 flush 시점(이벤트)에 바로 하고, 커밋 후에 한 번 더 합니다. 다시 만드는 중에 커밋된 회원명을 놓치지 않기 위함입니다.</li>
+ *     <li>삭제나 이름 변경 전의 회원명은 지울 수 없으므로 오탐으로 남습니다. 추가된 회원명이 필터 크기를 넘으면 다시 만듭니다.</li>
+ *     <li>벌크 연산은 어떤 회원명이 생겼는지 알 수 없으므로 필터를 쓰지 않다가 커밋 후 다시 만듭니다.</li>
+ *     <li>쓰기 트랜잭션에는 아직 flush 되지 않은 회원이 있을 수 있으므로 필터를 쓰지 않습니다.</li>
+ * </ul>
+ * 필터를 통과했는데 DB 에 없던 조회를 오탐으로 세서 실제 오탐률을 username.filter.fpp.observed 로 보고합니다.
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter implements MeterBinder {
+
+    private final UsernameFilterProperties properties;
+    private final EntityManagerFactory emf;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    // 추가는 read lock 을 나눠 잡고(비트 갱신 자체는 lock-free), 필터 교체만 write lock 을 잡습니다.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile BloomFilter filter;
+    // 다시 만드는 중이면 새 필터에도 함께 추가합니다.
+    private volatile BloomFilter building;
+    private volatile boolean ready;
+
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UsernameBloomFilter(UsernameFilterProperties properties, EntityManagerFactory emf) {
+        this.properties = properties;
+        this.emf = emf;
+        this.filter = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 필터가 회원명이 없다고 하면 query 를 실행하지 않고 빈 리스트를 반환합니다.
+     * 필터를 쓸 수 없는 상태(꺼짐, 만드는 중, 쓰기 트랜잭션, username 이 null)면 항상 query 를 실행합니다.
+     */
+    public <T> List<T> findByUsername(String username, Supplier<List<T>> query) {
+        if (username == null || !isUsable()) {
+            return query.get();
+        }
+        if (!filter.mightContain(username)) {
+            skipped.increment();
+            return new ArrayList<>();
+        }
+        passed.increment();
+        List<T> result = query.get();
+        if (result.isEmpty()) {
+            falsePositives.increment();
+        }
+        return result;
+    }
+
+    public boolean isUsable() {
+        return properties.isEnabled() && ready && !isReadWriteTransaction();
+    }
+
+    /**
+     * 회원명을 모두 다시 읽어서 새 필터로 교체합니다. 보통은 백그라운드 스레드에서 실행되며, 끝날 때까지 호출한 스레드를 막습니다.
+     */
+    public synchronized void rebuild() {
+        rebuildScheduled.set(false);
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try {
+            long count = new JPAQueryFactory(em).select(member.count()).from(member).fetchOne();
+            int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(properties.getExpectedInsertions(), count * 2));
+            BloomFilter fresh = new BloomFilter(capacity, properties.getFalsePositiveRate());
+            // 조회를 시작하기 전에 building 을 걸어둬야 조회 이후에 커밋된 회원명도 새 필터에 들어갑니다.
+            building = fresh;
+            new JPAQueryFactory(em).select(member.username).from(member).where(member.username.isNotNull())
+                    .fetch()
+                    .forEach(fresh::add);
+
+            lock.writeLock().lock();
+            try {
+                filter = fresh;
+                building = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("[username-filter] loaded {} usernames into {} bits, {} hashes in {} ms", count,
+                    fresh.getNumBits(), fresh.getNumHashes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            building = null;
+            log.warn("[username-filter] failed to load usernames, lookups go to the database", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    @EventListener
+    public void onMemberTeamChanged(MemberTeamChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (event.getType() == MemberTeamChangedEvent.Type.BULK) {
+            // 커밋 전이라도 이 시점부터는 필터를 믿을 수 없습니다. 다시 만드는 건 커밋된 데이터를 읽을 수 있을 때 합니다.
+            ready = false;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                pendingChanges().bulk = true;
+            } else {
+                requestRebuild();
+            }
+            return;
+        }
+        if (!(event.getEntity() instanceof Member) || event.getType() == MemberTeamChangedEvent.Type.REMOVE) {
+            return;
+        }
+        String username = ((Member) event.getEntity()).getUsername();
+        if (username == null) {
+            return;
+        }
+        add(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().usernames.add(username);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("username.filter.lookups", skipped, LongAdder::sum)
+                .tag("result", "skipped")
+                .description("findByUsername calls answered by the Bloom filter without SQL")
+                .register(registry);
+        FunctionCounter.builder("username.filter.lookups", passed, LongAdder::sum)
+                .tag("result", "passed")
+                .description("findByUsername calls that the Bloom filter passed to the database")
+                .register(registry);
+        FunctionCounter.builder("username.filter.false.positives", falsePositives, LongAdder::sum)
+                .description("Lookups passed by the Bloom filter that found no member")
+                .register(registry);
+        Gauge.builder("username.filter.fpp.configured", properties, UsernameFilterProperties::getFalsePositiveRate)
+                .register(registry);
+        Gauge.builder("username.filter.fpp.expected", this, self -> self.filter.expectedFalsePositiveRate())
+                .description("False positive rate estimated from the fraction of bits set")
+                .register(registry);
+        Gauge.builder("username.filter.fpp.observed", this, UsernameBloomFilter::observedFalsePositiveRate)
+                .description("False positives / lookups of usernames that did not exist")
+                .register(registry);
+    }
+
+    // 없는 회원명 조회 중에서 필터가 걸러내지 못한 비율입니다.
+    public double observedFalsePositiveRate() {
+        long misses = skipped.sum() + falsePositives.sum();
+        return misses == 0 ? 0 : (double) falsePositives.sum() / misses;
+    }
+
+    private void add(String username) {
+        boolean saturated;
+        lock.readLock().lock();
+        try {
+            filter.add(username);
+            BloomFilter next = building;
+            if (next != null) {
+                next.add(username);
+            }
+            saturated = filter.isSaturated();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (saturated && ready) {
+            requestRebuild();
+        }
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes != null) {
+            return changes;
+        }
+
+        PendingChanges newChanges = new PendingChanges();
+        TransactionSynchronizationManager.bindResource(this, newChanges);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(UsernameBloomFilter.this);
+                if (newChanges.bulk) {
+                    // 그사이 끝난 rebuild 가 ready 를 켰을 수 있으므로 다시 끕니다.
+                    ready = false;
+                    requestRebuild();
+                } else if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    newChanges.usernames.forEach(UsernameBloomFilter.this::add);
+                }
+            }
+        });
+        return newChanges;
+    }
+
+    private void requestRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuildIfScheduled);
+        }
+    }
+
+    // 요청이 쌓여있는 동안 누군가 rebuild() 를 직접 끝냈으면 다시 읽지 않습니다.
+    private synchronized void rebuildIfScheduled() {
+        if (rebuildScheduled.get()) {
+            rebuild();
+        }
+    }
+
+    private static boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static class PendingChanges {
+
+        private final List<String> usernames = new ArrayList<>();
+        private boolean bulk;
+    }
+}
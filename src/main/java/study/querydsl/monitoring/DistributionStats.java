@@ -0,0 +1,46 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer/DistributionSummary 스냅샷을 엔드포인트 응답용으로 옮긴 값입니다.
+ */
+@Getter
+public class DistributionStats {
+
+    private final long count;
+    private final double mean;
+    private final double max;
+    // 버킷 상한(mean, max 와 같은 단위) -> 그 값 이하로 기록된 누적 건수입니다. 새로 기록된 값이 없는 버킷은 생략합니다.
+    private final Map<Double, Long> buckets;
+
+    private DistributionStats(long count, double mean, double max, Map<Double, Long> buckets) {
+        this.count = count;
+        this.mean = mean;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    // unit 이 null 이면 시간이 아닌 값(건수, 스레드 수)입니다.
+    static DistributionStats of(HistogramSnapshot snapshot, TimeUnit unit) {
+        Map<Double, Long> buckets = new LinkedHashMap<>();
+        long previous = 0;
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            long count = (long) bucket.count();
+            if (count > previous) {
+                buckets.put(unit == null ? bucket.bucket() : bucket.bucket(unit), count);
+                previous = count;
+            }
+        }
+        return new DistributionStats(snapshot.count(),
+                unit == null ? snapshot.mean() : snapshot.mean(unit),
+                unit == null ? snapshot.max() : snapshot.max(unit),
+                buckets);
+    }
+}
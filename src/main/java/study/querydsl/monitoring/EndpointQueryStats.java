@@ -0,0 +1,120 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트별 누적 SQL 통계입니다.
+ * 한 요청에서 두 번 이상 실행된 SQL 모양은 repeatedStatements 에 모양별로 따로 모아서 어떤 SQL 이 반복되는지 보여줍니다.
+ */
+public class EndpointQueryStats {
+
+    // 엔드포인트 하나가 만드는 SQL 모양은 많지 않지만, 동적 조건이 많은 경우를 대비해 보관하는 모양 수를 제한합니다.
+    static final int MAX_REPEATED_STATEMENTS = 50;
+
+    @Getter
+    private final String endpoint;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder violatingRequests = new LongAdder();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+    private final AtomicLong lastStatements = new AtomicLong();
+    private final Map<String, RepeatedStatement> repeatedStatements = new ConcurrentHashMap<>();
+
+    public EndpointQueryStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(RequestQueryContext context) {
+        requests.increment();
+        statements.add(context.getStatementCount());
+        duplicates.add(context.getDuplicateCount());
+        if (context.hasViolations()) {
+            violatingRequests.increment();
+        }
+        maxStatements.accumulate(context.getStatementCount());
+        lastStatements.set(context.getStatementCount());
+        context.getShapeExecutions().forEach((fingerprint, executions) -> {
+            if (executions < 2) {
+                return;
+            }
+            RepeatedStatement repeated = repeatedStatements.get(fingerprint);
+            if (repeated == null) {
+                if (repeatedStatements.size() >= MAX_REPEATED_STATEMENTS) {
+                    return;
+                }
+                repeated = repeatedStatements.computeIfAbsent(fingerprint, key -> new RepeatedStatement());
+            }
+            repeated.record(executions);
+        });
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public double getAverageStatements() {
+        long count = getRequests();
+        return count == 0 ? 0 : (double) getStatements() / count;
+    }
+
+    public long getMaxStatements() {
+        return maxStatements.get();
+    }
+
+    public long getLastStatements() {
+        return lastStatements.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public long getViolatingRequests() {
+        return violatingRequests.sum();
+    }
+
+    public Map<String, RepeatedStatement> getRepeatedStatements() {
+        return new TreeMap<>(repeatedStatements);
+    }
+
+    /**
+     * SQL 모양 하나가 요청 안에서 반복된 기록입니다.
+     */
+    public static class RepeatedStatement {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder executions = new LongAdder();
+        private final LongAccumulator maxPerRequest = new LongAccumulator(Math::max, 0);
+
+        void record(int executionsInRequest) {
+            requests.increment();
+            executions.add(executionsInRequest);
+            maxPerRequest.accumulate(executionsInRequest);
+        }
+
+        // 이 모양을 두 번 이상 실행한 요청 수
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getMaxPerRequest() {
+            return maxPerRequest.get();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/locks 로 락별 대기 시간, 보유 시간, 대기열 길이 분포를 조회합니다.
+ */
+@Component
+@Endpoint(id = "locks")
+public class LockMetricsEndpoint {
+
+    private final LockMetricsRegistry registry;
+
+    public LockMetricsEndpoint(LockMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, LockStats> locks() {
+        return registry.snapshot();
+    }
+
+    @ReadOperation
+    public LockStats lock(@Selector String name) {
+        return registry.snapshot().get(name);
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import study.querydsl.concurrency.InstrumentedLock;
+import study.querydsl.config.LockMetricsProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 이름 붙은 InstrumentedLock 을 만들고 모아둡니다.
+ * 같은 이름으로 다시 요청하면 같은 락을 돌려주며, 측정값은 lock.wait, lock.hold, lock.queue 메트릭(tag: lock)으로도 나갑니다.
+ * 백분위수는 기록할 때마다 락을 잡은 스레드가 계산하게 되고 인스턴스끼리 합칠 수도 없으므로, 클라이언트에서 만들지 않고 고정된 히스토그램 버킷으로 냅니다.
+ */
+@Component
+public class LockMetricsRegistry {
+
+    // 락 대기/보유 시간은 마이크로초부터 잡히므로 1µs ~ 10s 를 1-2-5 간격으로 나눕니다.
+    // percentile histogram 은 레지스트리에 따라(SimpleMeterRegistry 등) 버킷을 만들지 않으므로 SLA 버킷을 직접 지정합니다.
+    private static final Duration[] TIME_BUCKETS = timeBuckets(TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(10));
+    private static final long[] QUEUE_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    private final MeterRegistry meterRegistry;
+    private final LockMetricsProperties properties;
+    private final Map<String, Entry> locks = new ConcurrentHashMap<>();
+
+    public LockMetricsRegistry(MeterRegistry meterRegistry, LockMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    public InstrumentedLock lock(String name) {
+        return lock(name, false);
+    }
+
+    public InstrumentedLock lock(String name, boolean fair) {
+        return locks.computeIfAbsent(name, key -> newEntry(key, fair)).lock;
+    }
+
+    public Map<String, LockStats> snapshot() {
+        Map<String, LockStats> stats = new TreeMap<>();
+        locks.forEach((name, entry) -> stats.put(name, new LockStats(name,
+                entry.waitTimer.takeSnapshot(), entry.holdTimer.takeSnapshot(), entry.queueLength.takeSnapshot())));
+        return stats;
+    }
+
+    private Entry newEntry(String name, boolean fair) {
+        Timer waitTimer = Timer.builder("lock.wait")
+                .description("Time spent waiting to acquire the lock (sampled)")
+                .tag("lock", name)
+                .sla(TIME_BUCKETS)
+                .register(meterRegistry);
+        Timer holdTimer = Timer.builder("lock.hold")
+                .description("Time the lock was held (sampled)")
+                .tag("lock", name)
+                .sla(TIME_BUCKETS)
+                .register(meterRegistry);
+        DistributionSummary queueLength = DistributionSummary.builder("lock.queue")
+                .description("Threads already waiting when the lock was requested (sampled)")
+                .tag("lock", name)
+                .sla(QUEUE_BUCKETS)
+                .register(meterRegistry);
+        InstrumentedLock lock = new InstrumentedLock(name, new ReentrantLock(fair), properties.getSampleRate(),
+                waitTimer, holdTimer, queueLength);
+        return new Entry(lock, waitTimer, holdTimer, queueLength);
+    }
+
+    private static Duration[] timeBuckets(long minNanos, long maxNanos) {
+        List<Duration> buckets = new ArrayList<>();
+        for (long decade = minNanos; decade <= maxNanos; decade *= 10) {
+            for (int step : new int[]{1, 2, 5}) {
+                if (decade * step <= maxNanos) {
+                    buckets.add(Duration.ofNanos(decade * step));
+                }
+            }
+        }
+        return buckets.toArray(new Duration[0]);
+    }
+
+    private static class Entry {
+
+        private final InstrumentedLock lock;
+        private final Timer waitTimer;
+        private final Timer holdTimer;
+        private final DistributionSummary queueLength;
+
+        private Entry(InstrumentedLock lock, Timer waitTimer, Timer holdTimer, DistributionSummary queueLength) {
+            this.lock = lock;
+            this.waitTimer = waitTimer;
+            this.holdTimer = holdTimer;
+            this.queueLength = queueLength;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 락 하나의 측정값입니다. 시간은 마이크로초 단위이며 샘플링된 획득만 반영합니다.
+ * 분포는 백분위수 대신 히스토그램 버킷(buckets)으로 나갑니다.
+ */
+@Getter
+public class LockStats {
+
+    private final String name;
+    private final long samples;
+    private final DistributionStats waitMicros;
+    private final DistributionStats holdMicros;
+    private final DistributionStats queueLength;
+
+    LockStats(String name, HistogramSnapshot wait, HistogramSnapshot hold, HistogramSnapshot queue) {
+        this.name = name;
+        this.samples = wait.count();
+        this.waitMicros = DistributionStats.of(wait, TimeUnit.MICROSECONDS);
+        this.holdMicros = DistributionStats.of(hold, TimeUnit.MICROSECONDS);
+        this.queueLength = DistributionStats.of(queue, null);
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 이 클래스가 선언한 public 메서드마다 지연 시간, 반환 행 수, SQL 수, 영속성 컨텍스트 크기를 기록합니다.
+ * 상위 클래스(Querydsl4RepositorySupport 등)에서 물려받은 메서드는 기록하지 않습니다.
+ *
+ * @see RepositoryMetrics
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MonitoredRepository {
+}
@@ -0,0 +1,27 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * /actuator/querybudget 으로 엔드포인트별 SQL 실행 통계를 조회합니다.
+ */
+@Component
+@Endpoint(id = "querybudget")
+public class QueryBudgetEndpoint {
+
+    private final QueryBudgetTracker tracker;
+
+    public QueryBudgetEndpoint(QueryBudgetTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public Map<String, EndpointQueryStats> summary() {
+        return new TreeMap<>(tracker.getEndpointStats());
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.monitoring;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 비동기 요청(StreamingResponseBody 등)은 요청 스레드가 먼저 반환되므로 afterConcurrentHandlingStarted 에서 집계를 끝냅니다.
+ * 그 뒤 다른 스레드에서 실행되는 SQL 과 결과를 돌려주는 ASYNC 디스패치는 집계하지 않습니다.
+ */
+@Component
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private final QueryBudgetTracker tracker;
+
+    public QueryBudgetInterceptor(QueryBudgetTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (tracker.isEnabled() && request.getDispatcherType() != DispatcherType.ASYNC) {
+            // /v1/members/{id} 처럼 URL 패턴 단위로 집계합니다.
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            tracker.start(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        tracker.finish();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        tracker.finish();
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * p6spy 로 실행 직전의 SQL 을 받아 현재 요청의 SQL 예산에 기록합니다.
+ * FAIL 모드에서 예산을 넘으면 SQL 이 실행되기 전에 예외가 발생합니다.
+ * 추적 중인 요청이 없으면 아무것도 하지 않고, 바인딩 값은 중복 검사를 할 때만 채워서 해시합니다.
+ */
+@Component
+public class QueryBudgetListener extends SimpleJdbcEventListener {
+
+    private final QueryBudgetTracker tracker;
+
+    public QueryBudgetListener(QueryBudgetTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        RequestQueryContext context = tracker.current();
+        if (context == null) {
+            return;
+        }
+        int parameterHash = context.isDetectDuplicates() ? SqlWithValues.of(statementInformation).hashCode() : 0;
+        tracker.onStatement(context, statementInformation.getSql(), parameterHash);
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.QueryBudgetProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 단위 SQL 예산을 관리합니다.
+ * start ~ finish 사이에 현재 스레드에서 실행된 SQL 을 세고, 요청이 끝나면 엔드포인트별 통계에 합산합니다.
+ * 비동기 페이징처럼 다른 스레드에서 실행되는 SQL 은 집계되지 않습니다.
+ * 시퀀스 조회와 DDL 은 요청이 직접 만든 SQL 이 아니므로 세지 않습니다.
+ * 위반은 세 가지입니다: 전체 SQL 수 초과, 같은 SQL 을 같은 값으로 다시 실행(중복), 같은 모양의 SQL 을 값만 바꿔 maxRepetitions 번 넘게 실행(N+1).
+ */
+@Slf4j
+@Component
+public class QueryBudgetTracker {
+
+    private static final Pattern UNTRACKED = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:call\\s+next\\s+value\\s+for|select\\s+next\\s+value\\s+for|select\\s+nextval|values\\s+next\\s+value\\s+for|create|alter|drop|truncate)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final ThreadLocal<RequestQueryContext> current = new ThreadLocal<>();
+    private final Map<String, EndpointQueryStats> endpointStats = new ConcurrentHashMap<>();
+    private final QueryBudgetProperties properties;
+
+    public QueryBudgetTracker(QueryBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * query.budget.endpoints 에서 꺼져 있는 엔드포인트는 추적하지 않습니다.
+     */
+    public void start(String endpoint) {
+        QueryBudgetProperties.EndpointBudget budget = properties.getEndpoints().get(endpoint);
+        if (budget != null && !budget.isEnabled()) {
+            current.remove();
+            return;
+        }
+
+        int maxStatements = budget != null && budget.getMaxStatements() != null
+                ? budget.getMaxStatements() : properties.getMaxStatements();
+        boolean detectDuplicates = budget != null && budget.getDetectDuplicates() != null
+                ? budget.getDetectDuplicates() : properties.isDetectDuplicates();
+        int maxRepetitions = budget != null && budget.getMaxRepetitions() != null
+                ? budget.getMaxRepetitions() : properties.getMaxRepetitions();
+        current.set(new RequestQueryContext(endpoint, maxStatements, detectDuplicates, maxRepetitions));
+    }
+
+    public RequestQueryContext finish() {
+        RequestQueryContext context = current.get();
+        current.remove();
+        if (context == null) {
+            return null;
+        }
+
+        endpointStats.computeIfAbsent(context.getEndpoint(), EndpointQueryStats::new).record(context);
+        if (context.hasViolations()) {
+            log.warn("[query-budget] {} executed {} statements ({} duplicates): {}",
+                    context.getEndpoint(), context.getStatementCount(), context.getDuplicateCount(), context.getViolations());
+        } else {
+            log.debug("[query-budget] {} executed {} statements", context.getEndpoint(), context.getStatementCount());
+        }
+        return context;
+    }
+
+    /**
+     * @return 현재 스레드에서 추적 중인 요청, 없으면 null
+     */
+    RequestQueryContext current() {
+        return current.get();
+    }
+
+    /**
+     * @param sql           바인딩 값이 들어가기 전의 SQL
+     * @param parameterHash 바인딩 값의 해시, context.isDetectDuplicates() 가 false 이면 사용하지 않습니다.
+     */
+    void onStatement(RequestQueryContext context, String sql, int parameterHash) {
+        if (UNTRACKED.matcher(sql).lookingAt()) {
+            return;
+        }
+
+        context.recordStatement();
+        if (context.getStatementCount() == context.getMaxStatements() + 1) {
+            violate(context, "statement budget of " + context.getMaxStatements() + " exceeded");
+        }
+        if (!context.isTrackingShapes()) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        int repetitions = context.recordShape(fingerprint);
+        if (context.getMaxRepetitions() > 0 && repetitions == context.getMaxRepetitions() + 1) {
+            violate(context, "statement repeated more than " + context.getMaxRepetitions() + " times (N+1?): " + fingerprint);
+        }
+        if (context.isDetectDuplicates() && context.recordExecution(fingerprint + '#' + parameterHash) == 2) {
+            violate(context, "duplicate statement: " + fingerprint);
+        }
+    }
+
+    private void violate(RequestQueryContext context, String violation) {
+        context.addViolation(violation);
+        if (properties.getMode() == QueryBudgetProperties.Mode.FAIL) {
+            throw new QueryBudgetExceededException("[" + context.getEndpoint() + "] " + violation);
+        }
+    }
+
+    public Map<String, EndpointQueryStats> getEndpointStats() {
+        return endpointStats;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+/**
+ * 리포지토리 메서드 하나를 검색 조건 조합별로 나눈 측정값입니다. 지연 시간은 밀리초 단위입니다.
+ * 영속성 컨텍스트 크기는 트랜잭션이나 OSIV 로 EntityManager 가 묶여 있던 호출만 반영합니다.
+ */
+@Getter
+public class RepositoryMethodStats {
+
+    private final String repository;
+    private final String method;
+    private final String condition;
+    private final long errors;
+    private final DistributionStats latencyMillis;
+    private final DistributionStats rows;
+    private final DistributionStats statements;
+    private final DistributionStats persistenceContextSize;
+
+    RepositoryMethodStats(String repository, String method, String condition, long errors,
+                          DistributionStats latencyMillis, DistributionStats rows,
+                          DistributionStats statements, DistributionStats persistenceContextSize) {
+        this.repository = repository;
+        this.method = method;
+        this.condition = condition;
+        this.errors = errors;
+        this.latencyMillis = latencyMillis;
+        this.rows = rows;
+        this.statements = statements;
+        this.persistenceContextSize = persistenceContextSize;
+    }
+}
@@ -0,0 +1,181 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 리포지토리 메서드별 측정값을 Micrometer 메트릭으로 기록합니다.
+ * <ul>
+ *     <li>repository.invocations: 지연 시간 히스토그램 (tag: repository, method, condition, outcome)</li>
+ *     <li>repository.rows: 반환한 행 수. 컬렉션, Slice/Page, CursorSlice, Optional 을 반환하는 메서드만 기록합니다.</li>
+ *     <li>repository.statements: 메서드가 현재 스레드에서 실행한 SQL 수</li>
+ *     <li>repository.persistence.context: 메서드가 끝날 때 영속성 컨텍스트가 관리하는 엔티티 수</li>
+ * </ul>
+ * condition 태그는 MemberSearchCondition 에서 값이 있는 필드를 "+" 로 이은 값입니다 (예: username+ageGoe).
+ * 필드 조합은 16 가지뿐이라 태그 값이 늘어나지 않습니다.
+ */
+@Component
+public class RepositoryMetrics {
+
+    static final String NO_CONDITION = "n/a";
+    static final String EMPTY_CONDITION = "none";
+
+    // 지연 시간은 인스턴스끼리 합칠 수 있도록 히스토그램 버킷으로 냅니다.
+    // percentile histogram 은 SimpleMeterRegistry 에서는 버킷을 만들지 않으므로 /actuator/repositories 용 SLA 버킷을 함께 둡니다.
+    private static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5)};
+
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory emf;
+    private final RepositoryStatementListener statementListener;
+    private final Map<String, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetrics(MeterRegistry meterRegistry, EntityManagerFactory emf,
+                             RepositoryStatementListener statementListener) {
+        this.meterRegistry = meterRegistry;
+        this.emf = emf;
+        this.statementListener = statementListener;
+    }
+
+    long statementCount() {
+        return statementListener.count();
+    }
+
+    void record(String repository, String method, String condition, Throwable error,
+                long elapsedNanos, Integer rows, long statements) {
+        MethodMeters methodMeters = meters.computeIfAbsent(repository + "." + method + "[" + condition + "]",
+                key -> new MethodMeters(repository, method, condition));
+        (error == null ? methodMeters.success : methodMeters.error).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows != null) {
+            methodMeters.rows.record(rows);
+        }
+        methodMeters.statements.record(statements);
+        Integer persistenceContextSize = persistenceContextSize();
+        if (persistenceContextSize != null) {
+            methodMeters.persistenceContext.record(persistenceContextSize);
+        }
+    }
+
+    public Map<String, RepositoryMethodStats> snapshot() {
+        Map<String, RepositoryMethodStats> stats = new TreeMap<>();
+        meters.forEach((key, methodMeters) -> stats.put(key, methodMeters.toStats()));
+        return stats;
+    }
+
+    // 트랜잭션이나 OSIV 로 묶인 EntityManager 가 없으면 새로 만들지 않고 null 을 돌려줍니다.
+    private Integer persistenceContextSize() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null || !holder.getEntityManager().isOpen()) {
+            return null;
+        }
+        return holder.getEntityManager().unwrap(SessionImplementor.class)
+                .getPersistenceContext().getNumberOfManagedEntities();
+    }
+
+    static String conditionLabel(MemberSearchCondition condition) {
+        if (condition == null) {
+            return NO_CONDITION;
+        }
+        StringJoiner label = new StringJoiner("+");
+        if (hasText(condition.getUsername())) {
+            label.add("username");
+        }
+        if (hasText(condition.getTeamName())) {
+            label.add("teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            label.add("ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            label.add("ageLoe");
+        }
+        return label.length() == 0 ? EMPTY_CONDITION : label.toString();
+    }
+
+    static Integer rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof CursorSlice) {
+            return ((CursorSlice<?>) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return null;
+    }
+
+    private class MethodMeters {
+
+        private final String repository;
+        private final String method;
+        private final String condition;
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+        private final DistributionSummary persistenceContext;
+
+        private MethodMeters(String repository, String method, String condition) {
+            this.repository = repository;
+            this.method = method;
+            this.condition = condition;
+            Tags tags = Tags.of("repository", repository, "method", method, "condition", condition);
+            this.success = Timer.builder("repository.invocations")
+                    .description("Repository method latency")
+                    .tags(tags.and("outcome", "success"))
+                    .publishPercentileHistogram()
+                    .sla(LATENCY_BUCKETS)
+                    .register(meterRegistry);
+            // 실패는 건수만 보므로 히스토그램을 두지 않습니다.
+            this.error = Timer.builder("repository.invocations")
+                    .description("Repository method latency")
+                    .tags(tags.and("outcome", "error"))
+                    .register(meterRegistry);
+            this.rows = summary("repository.rows", "Rows returned by the repository method", tags);
+            this.statements = summary("repository.statements", "SQL statements executed by the repository method", tags);
+            this.persistenceContext = summary("repository.persistence.context",
+                    "Entities managed by the persistence context when the repository method returned", tags);
+        }
+
+        private DistributionSummary summary(String name, String description, Tags tags) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        private RepositoryMethodStats toStats() {
+            return new RepositoryMethodStats(repository, method, condition, error.count(),
+                    DistributionStats.of(success.takeSnapshot(), TimeUnit.MILLISECONDS),
+                    DistributionStats.of(rows.takeSnapshot(), null),
+                    DistributionStats.of(statements.takeSnapshot(), null),
+                    DistributionStats.of(persistenceContext.takeSnapshot(), null));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/repositories 로 리포지토리 메서드별, 검색 조건 조합별 지연 시간, 행 수, SQL 수, 영속성 컨텍스트 크기를 조회합니다.
+ * 같은 값은 /actuator/metrics/repository.* 로도 조회할 수 있습니다.
+ */
+@Component
+@Endpoint(id = "repositories")
+public class RepositoryMetricsEndpoint {
+
+    private final RepositoryMetrics metrics;
+
+    public RepositoryMetricsEndpoint(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public Map<String, RepositoryMethodStats> repositories() {
+        return metrics.snapshot();
+    }
+}
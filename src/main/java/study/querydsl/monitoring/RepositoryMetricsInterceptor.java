@@ -0,0 +1,57 @@
+package study.querydsl.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.lang.reflect.Method;
+
+/**
+ * @MonitoredRepository 클래스의 메서드 호출을 감싸서 RepositoryMetrics 에 기록합니다.
+ * 트랜잭션 프록시 안쪽에서 실행되므로 @Transactional 메서드는 트랜잭션이 끝나기 전의 영속성 컨텍스트 크기가 기록됩니다.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    // MeterRegistry 를 BeanPostProcessor 생성 시점에 만들면 MeterRegistry 자신이 후처리되지 않으므로 처음 호출될 때 꺼냅니다.
+    private final ObjectProvider<RepositoryMetrics> metricsProvider;
+
+    public RepositoryMetricsInterceptor(ObjectProvider<RepositoryMetrics> metricsProvider) {
+        this.metricsProvider = metricsProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        RepositoryMetrics metrics = method.getDeclaringClass().isAnnotationPresent(MonitoredRepository.class)
+                ? metricsProvider.getIfAvailable() : null;
+        if (metrics == null) {
+            return invocation.proceed();
+        }
+
+        String repository = ClassUtils.getUserClass(invocation.getThis()).getSimpleName();
+        String condition = RepositoryMetrics.conditionLabel(findCondition(invocation.getArguments()));
+        long statementsBefore = metrics.statementCount();
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            metrics.record(repository, method.getName(), condition, null, System.nanoTime() - start,
+                    RepositoryMetrics.rows(result), metrics.statementCount() - statementsBefore);
+            return result;
+        } catch (Throwable ex) {
+            metrics.record(repository, method.getName(), condition, ex, System.nanoTime() - start,
+                    null, metrics.statementCount() - statementsBefore);
+            throw ex;
+        }
+    }
+
+    private MemberSearchCondition findCondition(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof MemberSearchCondition) {
+                return (MemberSearchCondition) argument;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.monitoring;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * @MonitoredRepository 클래스에 RepositoryMetricsInterceptor 를 씌웁니다.
+ * 이미 트랜잭션 프록시가 있으면 새 프록시를 만들지 않고 그 안쪽(트랜잭션 인터셉터 다음)에 추가합니다.
+ */
+public class RepositoryMetricsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> metrics) {
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(false);
+        this.advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(MonitoredRepository.class, true),
+                new RepositoryMetricsInterceptor(metrics));
+    }
+}
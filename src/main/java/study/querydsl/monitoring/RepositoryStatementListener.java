@@ -0,0 +1,24 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * p6spy 로 현재 스레드에서 실행된 SQL 수를 셉니다. 리포지토리 메서드 전후의 차이가 그 메서드가 실행한 SQL 수입니다.
+ * 비동기 페이징처럼 다른 스레드에서 실행되는 SQL 은 세지 않습니다.
+ */
+@Component
+public class RepositoryStatementListener extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<long[]> statements = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        statements.get()[0]++;
+    }
+
+    public long count() {
+        return statements.get()[0];
+    }
+}
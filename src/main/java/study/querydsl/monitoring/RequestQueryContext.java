@@ -0,0 +1,68 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP 요청 하나에서 실행된 SQL 정보를 모읍니다. 요청 스레드에서만 사용됩니다.
+ */
+@Getter
+public class RequestQueryContext {
+
+    private final String endpoint;
+    private final int maxStatements;
+    private final boolean detectDuplicates;
+    private final int maxRepetitions;
+    private int statementCount;
+    private int duplicateCount;
+    private final Map<String, Integer> executions = new HashMap<>();
+    // SQL 모양(SqlFingerprint)별 실행 횟수. 중복 검사나 반복 검사가 켜져 있을 때만 채웁니다.
+    private final Map<String, Integer> shapeExecutions = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+
+    public RequestQueryContext(String endpoint, int maxStatements, boolean detectDuplicates, int maxRepetitions) {
+        this.endpoint = endpoint;
+        this.maxStatements = maxStatements;
+        this.detectDuplicates = detectDuplicates;
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    boolean isTrackingShapes() {
+        return detectDuplicates || maxRepetitions > 0;
+    }
+
+    void recordStatement() {
+        statementCount++;
+    }
+
+    /**
+     * @param statementKey SQL 모양(SqlFingerprint)과 바인딩 값의 해시
+     * @return 이 요청에서 같은 SQL 이 같은 값으로 실행된 횟수
+     */
+    int recordExecution(String statementKey) {
+        int count = executions.merge(statementKey, 1, Integer::sum);
+        if (count > 1) {
+            duplicateCount++;
+        }
+        return count;
+    }
+
+    /**
+     * @return 이 요청에서 같은 모양의 SQL 이 값과 관계없이 실행된 횟수
+     */
+    int recordShape(String fingerprint) {
+        return shapeExecutions.merge(fingerprint, 1, Integer::sum);
+    }
+
+    void addViolation(String violation) {
+        violations.add(violation);
+    }
+
+    public boolean hasViolations() {
+        return !violations.isEmpty();
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SAMPLED 모드에서 실행이 끝난 SQL 을 SqlLogWriter 로 넘깁니다.
+ * 요청 스레드에서는 로그로 남길 SQL 만 파라미터를 채우고, 포맷과 집계와 로그 출력은 모두 로그 스레드가 합니다.
+ */
+@Component
+public class SampledSqlLogListener extends SimpleJdbcEventListener {
+
+    private final SqlLogWriter writer;
+
+    public SampledSqlLogListener(SqlLogWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!writer.isEnabled()) {
+            return;
+        }
+        boolean slow = timeElapsedNanos >= writer.getSlowNanos();
+        int samplePeriod = writer.getSamplePeriod();
+        boolean sampled = slow || e != null
+                || (samplePeriod > 0 && ThreadLocalRandom.current().nextInt(samplePeriod) == 0);
+        writer.offer(new SqlLogEvent(statementInformation.getSql(),
+                sampled ? SqlWithValues.of(statementInformation) : null,
+                timeElapsedNanos, slow, e == null ? null : e.toString()));
+    }
+}
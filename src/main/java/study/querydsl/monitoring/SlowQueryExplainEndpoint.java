@@ -0,0 +1,27 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/slowqueries 로 SQL 모양별 최근 느린 쿼리의 실행 계획을 조회합니다.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryExplainEndpoint {
+
+    private final SlowQueryExplainer explainer;
+
+    public SlowQueryExplainEndpoint(SlowQueryExplainer explainer) {
+        this.explainer = explainer;
+    }
+
+    @ReadOperation
+    public Map<String, List<SlowQueryPlan>> plans() {
+        return explainer.getPlans();
+    }
+}
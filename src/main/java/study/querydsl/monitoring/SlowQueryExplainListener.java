@@ -0,0 +1,27 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 성공한 SQL 의 실행 시간을 SlowQueryExplainer 에 넘깁니다. 파라미터를 채운 SQL 은 실행 계획을 남길 때만 만듭니다.
+ */
+@Component
+public class SlowQueryExplainListener extends SimpleJdbcEventListener {
+
+    private final SlowQueryExplainer explainer;
+
+    public SlowQueryExplainListener(SlowQueryExplainer explainer) {
+        this.explainer = explainer;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (e == null) {
+            explainer.onStatement(statementInformation.getSql(), () -> SqlWithValues.of(statementInformation), timeElapsedNanos);
+        }
+    }
+}
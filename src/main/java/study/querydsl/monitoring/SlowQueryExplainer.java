@@ -0,0 +1,178 @@
+package study.querydsl.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.concurrency.AtomicTokenBucket;
+import study.querydsl.concurrency.RateLimiter;
+import study.querydsl.config.SlowQueryExplainProperties;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * threshold 보다 오래 걸린 member/team 조회를 파라미터를 채운 채로 H2 에서 EXPLAIN ANALYZE 하고, SQL 모양별로 최근 실행 계획을 보관합니다.
+ * <ul>
+ *     <li>요청 스레드는 느린 SQL 일 때만 모양을 계산하고, 토큰 버킷과 모양별 최소 간격을 통과한 것만 대기열에 넣습니다.</li>
+ *     <li>EXPLAIN ANALYZE 는 쿼리를 실제로 한 번 더 실행하므로 select 만 대상으로 하고, 전용 스레드 하나가 풀에서 따로 받은 커넥션으로 실행합니다.</li>
+ *     <li>데이터베이스가 H2 가 아니면 처음 한 번 경고를 남기고 더 이상 실행하지 않습니다.</li>
+ *     <li>보관한 실행 계획은 "slow-query-plans" 락으로 보호하므로 /actuator/locks 에서 경합을 볼 수 있습니다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SlowQueryExplainer {
+
+    private final SlowQueryExplainProperties properties;
+    // DataSource 를 꾸미는 p6spy 가 이 빈을 쓰는 리스너를 필요로 하므로 DataSource 는 처음 실행할 때 꺼냅니다.
+    private final ObjectProvider<DataSource> dataSource;
+    private final RateLimiter rateLimiter;
+    private final ThreadPoolExecutor executor;
+    private final Pattern targetTables;
+    private final long thresholdNanos;
+    private final long minIntervalNanos;
+
+    private final Map<String, Long> lastCaptured = new ConcurrentHashMap<>();
+    private final Map<String, Deque<SlowQueryPlan>> plans = new ConcurrentHashMap<>();
+    // LockMetricsRegistry 는 MeterRegistry 를 거쳐 DataSource 를 필요로 하므로 락도 처음 쓸 때 꺼냅니다.
+    private final ObjectProvider<LockMetricsRegistry> lockMetricsRegistry;
+    private volatile Lock plansLock;
+    private final LongAdder skipped = new LongAdder();
+    private volatile boolean unsupported;
+
+    public SlowQueryExplainer(SlowQueryExplainProperties properties, ObjectProvider<DataSource> dataSource,
+                              ObjectProvider<LockMetricsRegistry> lockMetricsRegistry) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.lockMetricsRegistry = lockMetricsRegistry;
+        this.rateLimiter = new AtomicTokenBucket(properties.getBurst(), properties.getPermitsPerSecond());
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.targetTables = Pattern.compile("\\b(?:from|join)\\s+(?:" + String.join("|", properties.getTables()) + ")\\b",
+                Pattern.CASE_INSENSITIVE);
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.minIntervalNanos = properties.getMinInterval().toNanos();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void onStatement(String sql, Supplier<String> sqlWithValues, long elapsedNanos) {
+        if (!properties.isEnabled() || unsupported || elapsedNanos < thresholdNanos) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        if (!fingerprint.regionMatches(true, 0, "select ", 0, 7) || !targetTables.matcher(fingerprint).find()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        Long last = lastCaptured.get(fingerprint);
+        if (last != null && now - last < minIntervalNanos) {
+            return;
+        }
+        if ((last == null && lastCaptured.size() >= properties.getMaxFingerprints()) || !rateLimiter.tryAcquire()) {
+            skipped.increment();
+            return;
+        }
+        lastCaptured.put(fingerprint, now);
+
+        String explainSql = sqlWithValues.get();
+        try {
+            executor.execute(() -> explain(fingerprint, explainSql, elapsedNanos));
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+        }
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public Map<String, List<SlowQueryPlan>> getPlans() {
+        Map<String, List<SlowQueryPlan>> result = new TreeMap<>();
+        Lock plansLock = plansLock();
+        plansLock.lock();
+        try {
+            plans.forEach((fingerprint, recent) -> result.put(fingerprint, new ArrayList<>(recent)));
+        } finally {
+            plansLock.unlock();
+        }
+        return result;
+    }
+
+    private void explain(String fingerprint, String sql, long elapsedNanos) {
+        double elapsedMillis = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        try (Connection connection = dataSource.getObject().getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (!"H2".equals(product)) {
+                unsupported = true;
+                log.warn("[slow-explain] EXPLAIN ANALYZE capture supports H2 only, disabled for {}", product);
+                return;
+            }
+            connection.setReadOnly(true);
+            StringBuilder plan = new StringBuilder();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("EXPLAIN ANALYZE " + sql)) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            store(fingerprint, new SlowQueryPlan(sql, elapsedMillis, LocalDateTime.now(), plan.toString().trim(), null));
+            log.info("[slow-explain] {}ms: {}\n{}", Math.round(elapsedMillis), sql, plan);
+        } catch (SQLException | RuntimeException e) {
+            store(fingerprint, new SlowQueryPlan(sql, elapsedMillis, LocalDateTime.now(), null, e.toString()));
+            log.warn("[slow-explain] failed to explain {}: {}", sql, e.toString());
+        }
+    }
+
+    private void store(String fingerprint, SlowQueryPlan plan) {
+        Lock plansLock = plansLock();
+        plansLock.lock();
+        try {
+            Deque<SlowQueryPlan> recent = plans.computeIfAbsent(fingerprint, key -> new ArrayDeque<>());
+            recent.addFirst(plan);
+            while (recent.size() > properties.getPlansPerFingerprint()) {
+                recent.removeLast();
+            }
+        } finally {
+            plansLock.unlock();
+        }
+    }
+
+    // 같은 이름이면 같은 락을 돌려주므로 두 스레드가 동시에 꺼내도 괜찮습니다.
+    private Lock plansLock() {
+        Lock lock = plansLock;
+        if (lock == null) {
+            lock = lockMetricsRegistry.getObject().lock("slow-query-plans");
+            plansLock = lock;
+        }
+        return lock;
+    }
+}
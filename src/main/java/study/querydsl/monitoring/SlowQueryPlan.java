@@ -0,0 +1,26 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 느린 SQL 하나를 파라미터를 채운 채로 EXPLAIN ANALYZE 한 결과입니다. 실패하면 plan 대신 error 가 있습니다.
+ */
+@Getter
+public class SlowQueryPlan {
+
+    private final String sql;
+    private final double elapsedMillis;
+    private final LocalDateTime capturedAt;
+    private final String plan;
+    private final String error;
+
+    SlowQueryPlan(String sql, double elapsedMillis, LocalDateTime capturedAt, String plan, String error) {
+        this.sql = sql;
+        this.elapsedMillis = elapsedMillis;
+        this.capturedAt = capturedAt;
+        this.plan = plan;
+        this.error = error;
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * 리터럴, 주석, IN 목록 길이, 공백 차이를 지워서 같은 모양의 SQL 을 하나로 묶는 키를 만듭니다.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String fingerprint = withoutComments(sql);
+        fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+        return IN_LIST.matcher(fingerprint).replaceAll("(?...)");
+    }
+
+    public static String withoutComments(String sql) {
+        return COMMENT.matcher(sql).replaceAll(" ");
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 같은 모양의 SQL 의 누적 실행 통계입니다. SqlLogWriter 스레드만 기록합니다.
+ */
+public class SqlFingerprintStats {
+
+    @Getter
+    private final String fingerprint;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+
+    // 마지막 요약 로그 시점의 값. 로그 스레드만 읽고 씁니다.
+    private long summarizedExecutions;
+    private long summarizedNanos;
+
+    public SqlFingerprintStats(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    void record(long elapsedNanos, boolean error, boolean wasLogged) {
+        executions.increment();
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        if (error) {
+            errors.increment();
+        }
+        if (wasLogged) {
+            logged.increment();
+        }
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getAverageMillis() {
+        long count = getExecutions();
+        return count == 0 ? 0 : getTotalMillis() / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getLogged() {
+        return logged.sum();
+    }
+
+    long executionsSinceSummary() {
+        return executions.sum() - summarizedExecutions;
+    }
+
+    long nanosSinceSummary() {
+        return totalNanos.sum() - summarizedNanos;
+    }
+
+    void markSummarized() {
+        summarizedExecutions = executions.sum();
+        summarizedNanos = totalNanos.sum();
+    }
+}
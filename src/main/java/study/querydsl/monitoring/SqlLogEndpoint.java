@@ -0,0 +1,31 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/sqlstats 로 SAMPLED 모드에서 집계한 SQL 모양별 실행 통계를 총 실행 시간 순으로 조회합니다.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlLogEndpoint {
+
+    private final SqlLogWriter writer;
+
+    public SqlLogEndpoint(SqlLogWriter writer) {
+        this.writer = writer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sqlStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", writer.isEnabled());
+        result.put("dropped", writer.getDropped());
+        result.put("statements", writer.getStats());
+        return result;
+    }
+}
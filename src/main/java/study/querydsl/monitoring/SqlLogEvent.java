@@ -0,0 +1,25 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+/**
+ * 요청 스레드가 로그 스레드로 넘기는 실행된 SQL 한 건입니다.
+ * 파라미터를 채운 SQL 은 로그로 남길 때만 요청 스레드에서 만듭니다.
+ */
+@Getter
+class SqlLogEvent {
+
+    private final String sql;
+    private final String sqlWithValues;
+    private final long elapsedNanos;
+    private final boolean slow;
+    private final String error;
+
+    SqlLogEvent(String sql, String sqlWithValues, long elapsedNanos, boolean slow, String error) {
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.elapsedNanos = elapsedNanos;
+        this.slow = slow;
+        this.error = error;
+    }
+}
@@ -0,0 +1,168 @@
+package study.querydsl.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.SqlLogProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SAMPLED 모드에서 실행된 SQL 을 백그라운드 스레드 하나가 받아서 SQL 모양별로 집계하고,
+ * 샘플링되었거나 느린 SQL 만 한 줄씩, 나머지는 summaryInterval 마다 요약으로 로그를 남깁니다.
+ * 요청 스레드는 고정 크기 배열 큐에 넣기만 하고, 큐가 가득 차면 기다리지 않고 버린 뒤 건수만 셉니다.
+ */
+@Slf4j
+@Component
+public class SqlLogWriter {
+
+    static final String OTHER = "other";
+
+    private final SqlLogProperties properties;
+    private final BlockingQueue<SqlLogEvent> buffer;
+    private final Map<String, SqlFingerprintStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final long slowNanos;
+    private final int samplePeriod;
+
+    private volatile boolean running;
+    private Thread thread;
+    private long droppedAtSummary;
+
+    public SqlLogWriter(SqlLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+        this.slowNanos = properties.getSlowThreshold().toNanos();
+        double sampleRate = properties.getSampleRate();
+        this.samplePeriod = sampleRate <= 0 ? 0 : (int) Math.max(1, Math.round(1 / sampleRate));
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == SqlLogProperties.Mode.SAMPLED;
+    }
+
+    long getSlowNanos() {
+        return slowNanos;
+    }
+
+    int getSamplePeriod() {
+        return samplePeriod;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled() || running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "sql-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 남은 SQL 을 모두 처리하고 마지막 요약을 남긴 뒤 멈춥니다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    void offer(SqlLogEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public List<SqlFingerprintStats> getStats() {
+        List<SqlFingerprintStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(Comparator.comparingDouble(SqlFingerprintStats::getTotalMillis).reversed());
+        return sorted;
+    }
+
+    private void run() {
+        long summaryNanos = properties.getSummaryInterval().toNanos();
+        long nextSummary = System.nanoTime() + summaryNanos;
+        while (running || !buffer.isEmpty()) {
+            try {
+                SqlLogEvent event = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    handle(event);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.warn("[sql-log] failed to handle statement", e);
+            }
+            if (System.nanoTime() - nextSummary >= 0) {
+                summarize();
+                nextSummary = System.nanoTime() + summaryNanos;
+            }
+        }
+        summarize();
+    }
+
+    private void handle(SqlLogEvent event) {
+        String fingerprint = SqlFingerprint.of(event.getSql());
+        SqlFingerprintStats fingerprintStats = stats.get(fingerprint);
+        if (fingerprintStats == null) {
+            String key = stats.size() < properties.getMaxFingerprints() ? fingerprint : OTHER;
+            fingerprintStats = stats.computeIfAbsent(key, SqlFingerprintStats::new);
+        }
+        boolean logged = event.getSqlWithValues() != null;
+        fingerprintStats.record(event.getElapsedNanos(), event.getError() != null, logged);
+
+        if (!logged) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(event.getElapsedNanos());
+        if (event.getError() != null) {
+            log.warn("[sql-log] failed after {}ms ({}): {}", millis, event.getError(), event.getSqlWithValues());
+        } else if (event.isSlow()) {
+            log.warn("[sql-log] slow {}ms: {}", millis, event.getSqlWithValues());
+        } else {
+            log.info("[sql-log] sampled {}ms: {}", millis, event.getSqlWithValues());
+        }
+    }
+
+    private void summarize() {
+        List<SqlFingerprintStats> active = new ArrayList<>();
+        for (SqlFingerprintStats fingerprintStats : stats.values()) {
+            if (fingerprintStats.executionsSinceSummary() > 0) {
+                active.add(fingerprintStats);
+            }
+        }
+        long droppedSinceSummary = dropped.sum() - droppedAtSummary;
+        droppedAtSummary += droppedSinceSummary;
+        if (active.isEmpty() && droppedSinceSummary == 0) {
+            return;
+        }
+
+        active.sort(Comparator.comparingLong(SqlFingerprintStats::nanosSinceSummary).reversed());
+        log.info("[sql-log] {} statement shapes executed, {} dropped", active.size(), droppedSinceSummary);
+        for (int i = 0; i < Math.min(properties.getSummaryTop(), active.size()); i++) {
+            SqlFingerprintStats fingerprintStats = active.get(i);
+            long executions = fingerprintStats.executionsSinceSummary();
+            double totalMillis = fingerprintStats.nanosSinceSummary() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            log.info("[sql-log]   {} executions, {} ms total, {} ms avg: {}", executions,
+                    String.format("%.1f", totalMillis), String.format("%.2f", totalMillis / executions),
+                    fingerprintStats.getFingerprint());
+        }
+        active.forEach(SqlFingerprintStats::markSummarized);
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+
+/**
+ * p6spy 로 바인딩 값을 채운 SQL 을 만듭니다.
+ * p6spy 는 SQL 의 ? 를 앞에서부터 차례로 바꾸므로, use_sql_comments 가 남긴 JPQL 주석 속 ?1 에 첫 번째 값이 들어가고
+ * 실제 파라미터가 한 칸씩 밀립니다. 주석을 지운 SQL 로 잠시 바꿔서 값을 채운 뒤 원래 SQL 로 되돌립니다.
+ */
+public final class SqlWithValues {
+
+    private SqlWithValues() {
+    }
+
+    // 리스너는 SQL 을 실행하는 스레드에서 차례로 불리므로 잠시 바꿔도 다른 리스너에는 보이지 않습니다.
+    public static String of(StatementInformation statementInformation) {
+        String sql = statementInformation.getStatementQuery();
+        if (sql == null || sql.indexOf("/*") < 0) {
+            return statementInformation.getSqlWithValues();
+        }
+        statementInformation.setStatementQuery(SqlFingerprint.withoutComments(sql).trim());
+        try {
+            return statementInformation.getSqlWithValues();
+        } finally {
+            statementInformation.setStatementQuery(sql);
+        }
+    }
+}
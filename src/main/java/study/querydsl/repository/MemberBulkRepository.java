@@ -0,0 +1,203 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.ValidatingVisitor;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.BulkOperationProperties;
+import study.querydsl.dto.BulkProgress;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * Querydsl 조건에 해당하는 회원을 id 순서의 청크로 나눠서 수정/삭제합니다.
+ * <ol>
+ *     <li>조건에 맞는 회원 수와 최대 id 를 구해서 청크 수를 정합니다. 이후에 추가된 회원(더 큰 id)은 대상에서 빠집니다.</li>
+ *     <li>청크마다 새 트랜잭션에서 id &gt; 직전 청크의 마지막 id 인 대상을 id 순으로 chunkSize 개까지 select ... for update 로 잠그고,
+ *     그 id 들만 update/delete 한 뒤 커밋합니다. id 가 띄엄띄엄 있어도 청크마다 chunkSize 개씩 처리합니다.</li>
+ *     <li>호출한 쪽의 영속성 컨텍스트에서는 em.clear() 대신 처리된 회원만 detach 합니다.</li>
+ * </ol>
+ * 조건은 from member 하나에만 적용하므로 member 에서 시작하는 경로만 쓸 수 있습니다.
+ * 팀 조건은 member.team.name 처럼 연관 경로(암시적 조인)나 서브쿼리로 쓰고, QTeam.team 같은 다른 루트를 쓰면 시작하기 전에
+ * InvalidDataAccessApiUsageException(@Repository 예외 변환)이 발생합니다.
+ * 청크마다 커밋하므로 중간에 실패하면 이전 청크까지는 반영된 상태로 남습니다.
+ * 처리 중에 대상이 늘거나 줄면 전체 청크 수는 실제로 처리한 만큼으로 고쳐서 알립니다.
+ * 호출한 트랜잭션이 같은 회원을 수정해서 락을 잡고 있으면 청크 트랜잭션이 그 락을 기다리므로, 트랜잭션 밖이나 조회만 한 트랜잭션에서 호출해야 합니다.
+ */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private static final ValidatingVisitor UNDECLARED_PATH =
+            new ValidatingVisitor("Bulk predicate may only use paths starting from member: %s");
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BulkOperationProperties properties;
+
+    public MemberBulkRepository(EntityManager em, PlatformTransactionManager transactionManager,
+                                BulkOperationProperties properties) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+    }
+
+    public BulkProgress update(Predicate predicate, Consumer<JPAUpdateClause> assignments) {
+        return update(predicate, assignments, progress -> { });
+    }
+
+    public BulkProgress update(Predicate predicate, Consumer<JPAUpdateClause> assignments,
+                               Consumer<BulkProgress> progressListener) {
+        return execute("update", predicate, ids -> {
+            JPAUpdateClause clause = queryFactory.update(member).where(member.id.in(ids));
+            assignments.accept(clause);
+            return clause.execute();
+        }, progressListener);
+    }
+
+    public BulkProgress delete(Predicate predicate) {
+        return delete(predicate, progress -> { });
+    }
+
+    public BulkProgress delete(Predicate predicate, Consumer<BulkProgress> progressListener) {
+        return execute("delete", predicate, ids -> queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute(), progressListener);
+    }
+
+    private BulkProgress execute(String operation, Predicate predicate, Function<List<Long>, Long> statement,
+                                 Consumer<BulkProgress> progressListener) {
+        // 다른 루트의 경로가 있으면 청크마다 실행할 때가 아니라 시작하기 전에 실패시킵니다.
+        predicate.accept(UNDECLARED_PATH, Collections.<Expression<?>>singleton(member));
+
+        long start = System.nanoTime();
+        Tuple range = readOnlyTransaction.execute(status -> queryFactory
+                .select(member.id.count(), member.id.max())
+                .from(member)
+                .where(predicate)
+                .fetchOne());
+        Long count = range == null ? null : range.get(member.id.count());
+        Long maxId = range == null ? null : range.get(member.id.max());
+        if (count == null || count == 0 || maxId == null) {
+            return BulkProgress.empty(operation);
+        }
+
+        long chunkSize = properties.getChunkSize();
+        long totalChunks = (count + chunkSize - 1) / chunkSize;
+        long nanosPerChunk = properties.getChunksPerSecond() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / properties.getChunksPerSecond()) : 0;
+
+        BulkProgress progress = new BulkProgress(operation, 0, totalChunks, 0, null, maxId, 0);
+        long rows = 0;
+        Long lastId = null;
+        for (long chunk = 0; ; chunk++) {
+            if (!throttle(start, chunk, nanosPerChunk)) {
+                log.warn("Bulk {} interrupted after {}/{} chunks", operation, chunk, totalChunks);
+                return progress;
+            }
+
+            Long afterId = lastId;
+            List<Long> ids = chunkTransaction.execute(status -> {
+                // 청크 안의 대상 행을 먼저 잠가두면 update/delete 건수와 detach 할 id 가 정확히 일치합니다.
+                List<Long> chunkIds = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(predicate, afterId == null ? null : member.id.gt(afterId), member.id.loe(maxId))
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .fetch();
+                if (!chunkIds.isEmpty()) {
+                    statement.apply(chunkIds);
+                }
+                return chunkIds;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            rows += ids.size();
+            lastId = ids.get(ids.size() - 1);
+            detach(ids);
+
+            // 시작할 때 센 회원 수로 정한 청크 수는 그 사이 대상이 늘거나 줄면 달라지므로 실제 진행에 맞춥니다.
+            boolean exhausted = ids.size() < chunkSize;
+            totalChunks = exhausted ? chunk + 1 : Math.max(totalChunks, chunk + 1);
+            progress = new BulkProgress(operation, chunk + 1, totalChunks, rows, lastId, maxId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            progressListener.accept(progress);
+            log.debug("Bulk {} {}/{} chunks, {} rows", operation, progress.getChunksDone(), totalChunks, rows);
+            if (exhausted) {
+                return progress;
+            }
+        }
+
+        // 마지막 청크가 꽉 찬 뒤 더 이상 대상이 없으면 여기로 옵니다. 대상이 줄었으면 처리한 청크 수로 끝을 알립니다.
+        if (!progress.isDone()) {
+            progress = new BulkProgress(operation, progress.getChunksDone(), progress.getChunksDone(), rows, lastId, maxId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            progressListener.accept(progress);
+        }
+        return progress;
+    }
+
+    // 청크 시작 시각을 start + chunk * nanosPerChunk 에 맞춰서 초당 청크 수를 제한합니다.
+    private boolean throttle(long start, long chunk, long nanosPerChunk) {
+        long waitNanos = start + chunk * nanosPerChunk - System.nanoTime();
+        if (waitNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 호출한 트랜잭션의 영속성 컨텍스트에 처리된 회원이 있으면 그 회원만 detach 해서 다음 조회 때 DB 값을 읽게 합니다.
+    private void detach(List<Long> ids) {
+        if (ids.isEmpty() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : ids) {
+            EntityKey key = session.generateEntityKey(id, persister);
+            Object entity = persistenceContext.getEntity(key);
+            if (entity != null) {
+                em.detach(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import study.querydsl.entity.Member;
+
+// 회원을 엔티티로 조회할 때 연관관계를 어디까지 함께 가져올지 정합니다.
+public enum MemberFetchPlan {
+
+    // 회원만 조회합니다. team 은 프록시로 남고, 접근하면 Team 의 @BatchSize(100) 단위로 로딩됩니다.
+    // 2차 캐시에 없는 팀이 T 개면 쿼리는 1 + ceil(T / 100) 번입니다. (팀이 100개 이하일 때만 2번)
+    MEMBER(null),
+
+    // team 을 엔티티 그래프로 함께 조회합니다. (쿼리 1번)
+    WITH_TEAM(Member.GRAPH_WITH_TEAM);
+
+    private final String entityGraphName;
+
+    MemberFetchPlan(String entityGraphName) {
+        this.entityGraphName = entityGraphName;
+    }
+
+    public String getEntityGraphName() {
+        return entityGraphName;
+    }
+}
@@ -1,31 +1,54 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.config.QueryStreamProperties;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.index.MemberSearchIndex;
+import study.querydsl.index.UsernameBloomFilter;
+import study.querydsl.monitoring.MonitoredRepository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MemberTeamJoin.joinTeam;
 
 @Repository
+@MonitoredRepository
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchCache memberSearchCache;
+    private final MemberSearchIndex memberSearchIndex;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final QueryStreamProperties streamProperties;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberSearchCache memberSearchCache, MemberSearchIndex memberSearchIndex,
+                               UsernameBloomFilter usernameBloomFilter, QueryStreamProperties streamProperties) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchCache = memberSearchCache;
+        this.memberSearchIndex = memberSearchIndex;
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.streamProperties = streamProperties;
     }
 
     public void save(Member member){
@@ -33,6 +56,7 @@ public class MemberJpaRepository {
     }
 
 
+    @Transactional(readOnly = true)
     public Optional<Member> findById(Long id){
         Member findMember = em.find(Member.class, id);
 
@@ -41,29 +65,74 @@ public class MemberJpaRepository {
     }
 
 
+    @Transactional(readOnly = true)
     public List<Member> findAll(){
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return findAll(MemberFetchPlan.MEMBER);
     }
 
+    @Transactional(readOnly = true)
+    public List<Member> findAll(MemberFetchPlan fetchPlan){
+        TypedQuery<Member> query = em.createQuery("select m from Member m", Member.class);
+        return applyFetchPlan(query, fetchPlan).getResultList();
+    }
+
+    @Transactional(readOnly = true)
     public List<Member> findByUsername_Querydsl(String username){
-        return queryFactory.selectFrom(member)
+        return findByUsername_Querydsl(username, MemberFetchPlan.MEMBER);
+    }
+
+    // 없는 회원명은 Bloom filter 에서 걸러내고 SQL 을 실행하지 않습니다.
+    @Transactional(readOnly = true)
+    public List<Member> findByUsername_Querydsl(String username, MemberFetchPlan fetchPlan){
+        return usernameBloomFilter.findByUsername(username, () -> applyFetchPlan(queryFactory.selectFrom(member), fetchPlan)
                 .where(member.username.eq(username))
-                .fetch();
+                .fetch());
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl(){
-        return queryFactory.selectFrom(member)
+        return findAll_Querydsl(MemberFetchPlan.MEMBER);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Member> findAll_Querydsl(MemberFetchPlan fetchPlan){
+        return applyFetchPlan(queryFactory.selectFrom(member), fetchPlan)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername(String username){
+        return findByUsername(username, MemberFetchPlan.MEMBER);
+    }
 
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
-                .setParameter("username", username).getResultList();
+    @Transactional(readOnly = true)
+    public List<Member> findByUsername(String username, MemberFetchPlan fetchPlan){
 
+        return usernameBloomFilter.findByUsername(username, () -> {
+            TypedQuery<Member> query = em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username);
+            return applyFetchPlan(query, fetchPlan).getResultList();
+        });
+
+    }
+
+    // JPQL과 Querydsl 모두 같은 엔티티 그래프를 loadgraph 힌트로 넘겨서 fetch plan 을 적용합니다.
+    private TypedQuery<Member> applyFetchPlan(TypedQuery<Member> query, MemberFetchPlan fetchPlan) {
+        if (fetchPlan.getEntityGraphName() != null) {
+            query.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(fetchPlan.getEntityGraphName()));
+        }
+        return query;
     }
 
+    private JPAQuery<Member> applyFetchPlan(JPAQuery<Member> query, MemberFetchPlan fetchPlan) {
+        if (fetchPlan.getEntityGraphName() != null) {
+            query.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(fetchPlan.getEntityGraphName()));
+        }
+        return query;
+    }
 
+
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -86,31 +155,39 @@ public class MemberJpaRepository {
         }
 
 
-        return queryFactory
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(builder)
                 .fetch();
 
 
     }
+    // 자주 조회되는 검색 조건의 결과는 캐시에서 반환합니다. (반환된 리스트는 수정할 수 없습니다.)
+    // 메모리 인덱스가 켜져 있고 준비되었으면 DB 와 캐시를 거치지 않고 인덱스에서 바로 찾습니다.
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition){
+        if (memberSearchIndex.isReady()) {
+            return Collections.unmodifiableList(memberSearchIndex.search(condition));
+        }
+        return memberSearchCache.get(condition, () -> searchFromDatabase(condition));
+    }
+
+    private List<MemberTeamDto> searchFromDatabase(MemberSearchCondition condition){
 
-        return queryFactory
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -120,6 +197,42 @@ public class MemberJpaRepository {
 
     }
 
+    /**
+     * 검색 결과를 한 번에 List로 올리지 않고 한 건씩 consumer에게 넘겨줍니다.
+     * 하이버네이트에서 Querydsl의 iterate()는 ScrollableResults(FORWARD_ONLY)로 동작하기 때문에 힙 사용량이 결과 건수와 무관하게 일정합니다.
+     * 커서가 열려있는 동안 커넥션을 유지해야 하므로 트랜잭션 안에서 실행합니다.
+     * DTO 로 조회하므로 영속성 컨텍스트에 엔티티가 쌓이지 않고, 호출한 쪽 트랜잭션에 참여해도 그 영속성 컨텍스트를 건드리지 않습니다.
+     *
+     * @return 전달한 row 수
+     */
+    @Transactional(readOnly = true)
+    public long streamSearch(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer){
+        long count = 0;
+        try (CloseableIterator<MemberTeamDto> iterator = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member), condition.getTeamName())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .setHint(QueryHints.HINT_FETCH_SIZE, streamProperties.getFetchSize())
+                .setHint(QueryHints.HINT_READONLY, true)
+                .iterate()) {
+
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
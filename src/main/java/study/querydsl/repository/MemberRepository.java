@@ -9,8 +9,6 @@ import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
 
-    List<Member> findByUsername(String username);
-
 
 
 
@@ -2,16 +2,22 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 import java.util.List;
 
 public interface MemberRepositoryCustom {
 
+    List<Member> findByUsername(String username);
+    List<Member> findByUsername(String username, MemberFetchPlan fetchPlan);
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, MemberCursor after, int size);
 
 
 }
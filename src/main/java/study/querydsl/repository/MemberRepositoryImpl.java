@@ -4,61 +4,87 @@ import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.index.UsernameBloomFilter;
+import study.querydsl.monitoring.MonitoredRepository;
+import study.querydsl.repository.support.AsyncPageExecutor;
+import study.querydsl.repository.support.CountQueryOptimizer;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MemberTeamJoin.joinTeam;
 
+@MonitoredRepository
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
-
-    public MemberRepositoryImpl(EntityManager em) {
+    private final AsyncPageExecutor asyncPageExecutor;
+    private final MemberCountCache memberCountCache;
+    private final UsernameBloomFilter usernameBloomFilter;
+
+    public MemberRepositoryImpl(EntityManager em, AsyncPageExecutor asyncPageExecutor, MemberCountCache memberCountCache,
+                                UsernameBloomFilter usernameBloomFilter) {
+        this.em = em;
+        this.asyncPageExecutor = asyncPageExecutor;
+        this.memberCountCache = memberCountCache;
+        this.usernameBloomFilter = usernameBloomFilter;
         queryFactory = new JPAQueryFactory(em);
     }
 
+    // 쿼리 메소드 대신 직접 구현해서, 없는 회원명은 Bloom filter 에서 걸러내고 SQL 을 실행하지 않습니다.
+    // 쿼리 메소드와 같이 username 이 null 이면 username is null 로 조회합니다.
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findByUsername(String username) {
+        return findByUsername(username, MemberFetchPlan.MEMBER);
+    }
 
+    // fetch plan 과 상관없이 Bloom filter 를 먼저 거칩니다. team 은 엔티티 그래프를 loadgraph 힌트로 넘겨서 함께 조회합니다.
     @Override
-    public List<MemberTeamDto> search(MemberSearchCondition condition){
+    @Transactional(readOnly = true)
+    public List<Member> findByUsername(String username, MemberFetchPlan fetchPlan) {
+        return usernameBloomFilter.findByUsername(username, () -> {
+            JPAQuery<Member> query = queryFactory
+                    .selectFrom(member)
+                    .where(username == null ? member.username.isNull() : member.username.eq(username));
+            if (fetchPlan.getEntityGraphName() != null) {
+                query.setHint(QueryHints.HINT_LOADGRAPH, em.getEntityGraph(fetchPlan.getEntityGraphName()));
+            }
+            return query.fetch();
+        });
+    }
 
-        List<MemberTeamDto> result = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
 
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition){
 
-        return queryFactory
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -88,15 +114,14 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> result = queryFactory
+        QueryResults<MemberTeamDto> result = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -119,44 +144,83 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
         // count 쿼리를 최적화 하기 위해서 별도로 콘텐츠만 조회하는 쿼리랑 count를 조회하는 쿼리를 분리하면 성능이 더 항상됩니다.
         // 데이터가 많이 없으면 그냥 QueryResult 객체로 받아서 카운트 쿼리를 써도 되지만, 대용량 트래픽을 처리할 경우는 카운트 쿼리에 대해서 고민을 해봐야 합니다.
-        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable);
-        JPAQuery<Member> countQuery = getTotal(condition);
+        JPAQuery<MemberTeamDto> contentQuery = getMemberTeamDtos(condition);
+        JPAQuery<?> countQuery = getTotal(contentQuery);
+        LongSupplier total = () -> memberCountCache.get(condition, countQuery::fetchCount);
+
+        contentQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        // 비동기 모드에서는 콘텐츠 쿼리와 count 쿼리를 동시에 실행해서 응답 시간을 max(content, count)로 줄입니다.
+        if (asyncPageExecutor.isEnabled()) {
+            return asyncPageExecutor.getPage(pageable, contentQuery::fetch, total);
+        }
+
+        List<MemberTeamDto> content = contentQuery.fetch();
 
         // content Size가 페이지 사이즈보다 작을 때는 카운트 쿼리를 날리지 않는 메소드입니다.
-        return PageableExecutionUtils.getPage(content, pageable, countQuery :: fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, total);
     }
 
-    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition, Pageable pageable) {
-        return queryFactory
+    private JPAQuery<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition) {
+        return joinTeam(queryFactory
                     .select(new QMemberTeamDto(
                             member.id.as("memberId"),
                             member.username,
                             member.age,
                             team.id.as("teamId"),
                             team.name.as("teamName")))
-                    .from(member)
-                    .leftJoin(member.team, team)
+                    .from(member), condition.getTeamName())
                     .where(
                             usernameEq(condition.getUsername()),
                             teamNameEq(condition.getTeamName()),
                             ageGoe(condition.getAgeGoe()),
-                            ageLoe(condition.getAgeLoe()))
-                    .offset(pageable.getOffset())
-                    .limit(pageable.getPageSize())
-                    .fetch();
+                            ageLoe(condition.getAgeLoe()));
     }
 
-    private JPAQuery<Member> getTotal(MemberSearchCondition condition) {
-        return queryFactory
-                    .select(member)
-                    .from(member)
-                    .leftJoin(member.team, team)
-                    .where(
-                            usernameEq(condition.getUsername()),
-                            teamNameEq(condition.getTeamName()),
-                            ageGoe(condition.getAgeGoe()),
-                            ageLoe(condition.getAgeLoe())
-                    );
+    // teamName 조건이 없으면 team 조인이 count 결과에 영향을 주지 않으므로 조인을 제거한 count 쿼리를 사용합니다.
+    private JPAQuery<?> getTotal(JPAQuery<MemberTeamDto> contentQuery) {
+        return CountQueryOptimizer.optimize(em, contentQuery);
+    }
+
+    /**
+     * offset 대신 마지막으로 조회한 회원 id 이후부터 조회하는 keyset(seek) 페이징입니다.
+     * offset 방식은 앞의 row를 모두 읽고 버려야 하지만, 이 방식은 PK 인덱스로 바로 시작 위치를 찾기 때문에 페이지가 깊어져도 성능이 일정합니다.
+     * size + 1 건을 조회해서 다음 페이지 존재 여부를 판단하므로 count 쿼리도 필요 없습니다.
+     */
+    @Override
+    public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, MemberCursor after, int size) {
+        Assert.isTrue(size > 0, "Slice size must be greater than zero!");
+
+        List<MemberTeamDto> content = joinTeam(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member), condition.getTeamName())
+                .where(
+                        memberIdGt(after),
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(member.id.asc())
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+
+        String nextCursor = hasNext ? MemberCursor.of(content.get(size - 1).getMemberId()).encode() : null;
+        return new CursorSlice<>(content, hasNext, nextCursor);
+    }
 
+    private BooleanExpression memberIdGt(MemberCursor after) {
+        return after != null ? member.id.gt(after.getLastMemberId()) : null;
     }
 }
@@ -4,9 +4,13 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.monitoring.MonitoredRepository;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -15,6 +19,10 @@ import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+// 조회 전용 리포지토리입니다. 직접 트랜잭션을 시작할 때는 읽기 전용으로 시작해서 세션 전체가 스냅샷 없이, flush 없이 동작합니다.
+@Repository
+@Transactional(readOnly = true)
+@MonitoredRepository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public MemberTestRepository() {
@@ -22,20 +30,20 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public List<Member> basicSelect() {
-        return select(member)
+        return readOnly(select(member))
                 .from(member)
                 .fetch();
     }
 
 
     public List<Member> basicSelectFrom() {
-        return selectFrom(member)
+        return selectFromReadOnly(member)
                 .fetch();
     }
 
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable){
 
-        JPAQuery<Member> query = selectFrom(member)
+        JPAQuery<Member> query = selectFromReadOnly(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername())
@@ -51,8 +59,8 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable){
-        return applyPagination(pageable, query -> query
-                        .selectFrom(member)
+        return applyPagination(pageable, query -> readOnly(query
+                        .selectFrom(member))
                         .leftJoin(member.team, team)
                         .where(usernameEq(condition.getUsername()),
                                 teamNameEq(condition.getTeamName()),
@@ -64,8 +72,8 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable){
-        return applyPagination(pageable, contentQuery -> contentQuery
-                .selectFrom(member)
+        return applyPagination(pageable, contentQuery -> readOnly(contentQuery
+                .selectFrom(member))
                 .leftJoin(member.team, team)
                 .where(usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -83,6 +91,18 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // 무한 스크롤처럼 전체 개수가 필요 없는 화면에서는 count 쿼리를 생략합니다.
+    public Slice<Member> applySlice(MemberSearchCondition condition, Pageable pageable){
+        return applySlice(pageable, query -> readOnly(query
+                .selectFrom(member))
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
 
 
     private BooleanExpression usernameEq(String username) {
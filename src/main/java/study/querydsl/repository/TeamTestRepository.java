@@ -0,0 +1,31 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@Transactional(readOnly = true)
+public class TeamTestRepository extends Querydsl4RepositorySupport {
+
+    public TeamTestRepository() {
+        super(Team.class);
+    }
+
+    // 팀 페이지를 소속 회원과 함께 조회합니다. 페이징은 팀 id 에만 적용되므로 메모리 페이징이 일어나지 않습니다.
+    public Page<Team> findTeamsWithMembers(Pageable pageable) {
+        return applyPaginationByIds(pageable,
+                select(team.id).from(team),
+                ids -> selectFromReadOnly(team)
+                        .distinct()
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids)),
+                Team::getId);
+    }
+}
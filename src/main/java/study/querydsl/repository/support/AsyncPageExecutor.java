@@ -0,0 +1,120 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.config.AsyncPagingProperties;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 콘텐츠 쿼리와 count 쿼리를 별도의 스레드에서 동시에 실행한 뒤 Page로 합쳐줍니다.
+ * 각 쿼리는 새로운 읽기 전용 트랜잭션(=별도의 EntityManager)에서 실행되므로,
+ * 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 데이터는 조회되지 않습니다.
+ * 이미 실행 중인 쿼리는 future 를 취소해도 멈추지 않기 때문에, 트랜잭션 타임아웃을 걸어서
+ * DB 에서도 timeout 이 지나면 쿼리를 중단(Statement#setQueryTimeout)하고 커넥션을 반납하도록 합니다.
+ */
+@Component
+public class AsyncPageExecutor {
+
+    private final AsyncPagingProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // 꺼져 있으면 스레드 풀을 만들지 않습니다.
+    private final ThreadPoolTaskExecutor executor;
+
+    public AsyncPageExecutor(PlatformTransactionManager transactionManager, AsyncPagingProperties properties) {
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setTimeout(timeoutSeconds(properties));
+        this.executor = properties.isEnabled() ? createExecutor(properties) : null;
+    }
+
+    // 큐가 가득 차면 호출한 스레드에서 직접 실행해서 요청이 무한정 쌓이지 않도록 합니다.
+    private static ThreadPoolTaskExecutor createExecutor(AsyncPagingProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("paging-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // 트랜잭션 타임아웃은 초 단위이므로 올림합니다.
+    private static int timeoutSeconds(AsyncPagingProperties properties) {
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getTimeout().toMillis() + 999));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    public <T> Page<T> getPage(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        Assert.state(isEnabled(), "Async paging is disabled");
+
+        CompletableFuture<List<T>> contentFuture = submit(content);
+        CompletableFuture<Long> countFuture = submit(count::getAsLong);
+
+        List<T> result;
+        try {
+            result = await(contentFuture);
+        } catch (RuntimeException e) {
+            countFuture.cancel(false);
+            throw e;
+        }
+
+        // 첫 페이지에서 콘텐츠가 페이지 사이즈보다 작으면 count 결과를 기다리지 않습니다.
+        // 아직 큐에서 대기 중인 count 는 실행되지 않지만, 이미 실행 중이면 끝나거나 쿼리 타임아웃이 지날 때까지 커넥션을 사용합니다.
+        Page<T> page = PageableExecutionUtils.getPage(result, pageable, () -> await(countFuture));
+        countFuture.cancel(false);
+        return page;
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    private <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for paging query", e);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalStateException("Paging query timed out after " + properties.getTimeout(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 콘텐츠 조회 쿼리로부터 count 쿼리를 만들어 줍니다.
+ * <ul>
+ *     <li>select 절은 루트 엔티티 count(id)로 바꿉니다.</li>
+ *     <li>order by, offset, limit, fetch join 플래그는 제거합니다.</li>
+ *     <li>where / having / 남아있는 조인에서 참조하지 않는 단건(ManyToOne, OneToOne) left join은 제거합니다.</li>
+ * </ul>
+ * inner join이나 컬렉션 left join은 row 수에 영향을 주기 때문에 그대로 유지하고,
+ * group by가 있는 쿼리는 결과 row 수를 세야 하므로 최적화하지 않고 원본 쿼리를 돌려줍니다.
+ */
+public class CountQueryOptimizer {
+
+    private CountQueryOptimizer() {
+    }
+
+    public static JPAQuery<?> optimize(EntityManager entityManager, JPAQuery<?> contentQuery) {
+        Assert.notNull(entityManager, "EntityManager must not be null!");
+        Assert.notNull(contentQuery, "Content query must not be null!");
+
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+        if (!source.getGroupBy().isEmpty() || joins.isEmpty()) {
+            return contentQuery;
+        }
+
+        List<JoinExpression> retained = retainedJoins(source);
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        for (JoinExpression join : retained) {
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        if (source.getHaving() != null) {
+            metadata.addHaving(source.getHaving());
+        }
+        for (QueryFlag flag : source.getFlags()) {
+            metadata.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(metadata, param.getKey(), param.getValue());
+        }
+        metadata.setDistinct(source.isDistinct());
+
+        // JPQL에서 count(엔티티)는 count(엔티티.id)로 변환됩니다.
+        metadata.setProjection(joins.get(0).getTarget());
+
+        return new JPAQuery<>(entityManager, metadata);
+    }
+
+    private static List<JoinExpression> retainedJoins(QueryMetadata source) {
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        collectRoots(source.getHaving(), referenced);
+
+        // 뒤쪽 조인이 앞쪽 조인의 alias를 참조할 수 있으므로 역순으로 확인합니다.
+        List<JoinExpression> joins = source.getJoins();
+        List<JoinExpression> retained = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i > 0 && isRemovable(join, referenced)) {
+                continue;
+            }
+            retained.add(join);
+            collectRoots(join.getTarget(), referenced);
+            collectRoots(join.getCondition(), referenced);
+        }
+        Collections.reverse(retained);
+        return retained;
+    }
+
+    private static boolean isRemovable(JoinExpression join, Set<Expression<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN || !(join.getTarget() instanceof Operation)) {
+            return false;
+        }
+        Operation<?> target = (Operation<?>) join.getTarget();
+        if (target.getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Expression<?> association = target.getArg(0);
+        Expression<?> alias = target.getArg(1);
+        return !(association instanceof CollectionExpression) && !referenced.contains(alias);
+    }
+
+    private static void collectRoots(Expression<?> expr, Set<Expression<?>> roots) {
+        if (expr != null) {
+            expr.accept(RootPathCollector.INSTANCE, roots);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(DefaultQueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    private enum RootPathCollector implements Visitor<Void, Set<Expression<?>>> {
+
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            visitAll(expr.getArgs(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            visitAll(expr.getArgs(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            }
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            collectRoots(metadata.getProjection(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+
+        private void visitAll(List<Expression<?>> args, Set<Expression<?>> roots) {
+            for (Expression<?> arg : args) {
+                collectRoots(arg, roots);
+            }
+        }
+    }
+}
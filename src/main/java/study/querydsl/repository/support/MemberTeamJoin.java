@@ -0,0 +1,22 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 쿼리에서 member 와 team 을 조인하는 방법을 검색 조건에 따라 고릅니다.
+ */
+public final class MemberTeamJoin {
+
+    private MemberTeamJoin() {
+    }
+
+    // teamName 조건이 있으면 팀이 없는 회원은 어차피 결과에서 빠지므로 inner join 을 사용합니다.
+    // left join 은 DB가 조인 순서를 바꿀 수 없지만, inner join 이면 team.name 인덱스로 팀을 먼저 찾고 member(team_id, age) 인덱스로 회원을 찾을 수 있습니다.
+    public static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+        return hasText(teamName) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+}
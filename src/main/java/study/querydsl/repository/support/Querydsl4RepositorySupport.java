@@ -5,9 +5,12 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -17,7 +20,11 @@ import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 public class Querydsl4RepositorySupport {
@@ -71,22 +78,96 @@ public class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 조회한 엔티티의 스냅샷을 만들지 않습니다. (변경 감지 제외)
+    // 트랜잭션이 읽기 전용이 아니어도 이 쿼리로 읽은 엔티티는 수정해도 반영되지 않으므로 조회 전용 화면에서만 사용합니다.
+    // flush 는 @Transactional(readOnly = true) 로 시작한 트랜잭션에서 세션 전체가 FlushMode.MANUAL 이 되어 생략됩니다.
+    // 쿼리 단위로 MANUAL 을 주면 바깥 트랜잭션에서 아직 flush 되지 않은 변경을 못 보게 되므로 여기서는 주지 않습니다.
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return query.setHint(QueryHints.HINT_READONLY, true);
+    }
+
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return readOnly(selectFrom(from));
+    }
+
+    // 콘텐츠 쿼리에서 불필요한 조인, 정렬, 프로젝션을 제거한 count 쿼리를 만듭니다.
+    protected JPAQuery<?> countQuery(JPAQuery<?> contentQuery) {
+        return CountQueryOptimizer.optimize(getEntityManager(), contentQuery);
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<?> countResult = countQuery(jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
 
 
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
     }
 
+    // count 쿼리를 직접 작성한 경우에는 작성한 그대로 실행합니다. (조인이나 조건을 의도적으로 남겨둔 것일 수 있습니다)
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
 
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        JPAQuery<?> countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
     }
+
+    // 컬렉션을 페치 조인한 채로 페이징하면 Hibernate가 전체 결과를 메모리에서 잘라냅니다. (HHH000104)
+    // 먼저 idQuery 로 해당 페이지의 루트 id 만 페이징해서 조회하고, fetchQuery 로 그 id 들만 페치 조인해서 가져온 뒤 id 순서대로 정렬합니다.
+    protected <T, ID> Page<T> applyPaginationByIds(Pageable pageable,
+                                                   JPAQuery<ID> idQuery,
+                                                   Function<List<ID>, JPAQuery<T>> fetchQuery,
+                                                   Function<T, ID> idMapper) {
+        JPAQuery<?> countResult = countQuery(idQuery);
+        List<ID> ids = getQuerydsl().applyPagination(pageable, idQuery).fetch();
+        if (ids.isEmpty()) {
+            return PageableExecutionUtils.getPage(Collections.emptyList(), pageable, countResult::fetchCount);
+        }
+
+        // 페치 조인 결과는 컬렉션 크기만큼 중복될 수 있으므로 id 로 한 번 더 묶습니다.
+        Map<ID, T> fetched = new HashMap<>();
+        for (T entity : fetchQuery.apply(ids).fetch()) {
+            fetched.putIfAbsent(idMapper.apply(entity), entity);
+        }
+        List<T> content = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = fetched.get(id);
+            if (entity != null) {
+                content.add(entity);
+            }
+        }
+        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+    }
+
+    // count 쿼리 없이 pageSize + 1 건을 조회해서 다음 페이지 존재 여부만 판단합니다. (무한 스크롤, 더보기 버튼 등)
+    protected <T> Slice<T> applySlice(Pageable pageable,
+                                      Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        return fetchSlice(pageable, jpaQuery);
+    }
+
+    protected <T> Slice<T> applySlice(Pageable pageable, JPAQuery<T> contentQuery) {
+        return fetchSlice(pageable, contentQuery);
+    }
+
+    private <T> Slice<T> fetchSlice(Pageable pageable, JPAQuery<T> jpaQuery) {
+        if (pageable.isUnpaged()) {
+            List<T> content = getQuerydsl().applySorting(pageable.getSort(), jpaQuery).fetch();
+            return new SliceImpl<>(content, pageable, false);
+        }
+
+        jpaQuery.offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1);
+        List<T> content = getQuerydsl().applySorting(pageable.getSort(), jpaQuery).fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
 }
@@ -0,0 +1,16 @@
+package study.querydsl.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class MemberImportException extends IllegalArgumentException {
+
+    public MemberImportException(String message) {
+        super(message);
+    }
+
+    public MemberImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
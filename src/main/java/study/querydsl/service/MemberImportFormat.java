@@ -0,0 +1,21 @@
+package study.querydsl.service;
+
+import org.springframework.http.MediaType;
+
+public enum MemberImportFormat {
+
+    // username,age,teamName (첫 줄이 username 으로 시작하면 헤더로 보고 건너뜁니다.)
+    CSV,
+    // {"username":"member1","age":10,"teamName":"teamA"}
+    NDJSON;
+
+    public static MemberImportFormat from(MediaType contentType) {
+        if (contentType != null && "csv".equalsIgnoreCase(contentType.getSubtype())) {
+            return CSV;
+        }
+        if (contentType != null && contentType.getSubtype().toLowerCase().contains("ndjson")) {
+            return NDJSON;
+        }
+        throw new MemberImportException("Unsupported content type: " + contentType + " (text/csv or application/x-ndjson)");
+    }
+}
@@ -0,0 +1,265 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamChangeListener;
+import study.querydsl.config.MemberImportProperties;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.LockMetricsRegistry;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.Lock;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * CSV / NDJSON 으로 받은 회원을 대량으로 저장합니다.
+ * <ol>
+ *     <li>입력을 chunkSize 단위로 나눠서 전용 스레드 풀(parallelism 개)에서 동시에 파싱합니다. (동시에 parallelism 개까지만 메모리에 올립니다.)</li>
+ *     <li>팀 이름은 처음 한 번만 조회해서 id로 바꿔두고, 회원에는 getReference 로 연결해서 팀을 다시 조회하지 않습니다.</li>
+ *     <li>청크 하나를 한 트랜잭션으로 저장하며 flushSize 마다 flush/clear 해서 JDBC 배치로 insert 합니다.</li>
+ *     <li>청크 트랜잭션에서는 회원마다 MemberTeamChangedEvent 를 발행하지 않고 BULK 이벤트 하나로 캐시와 인덱스에 알립니다.</li>
+ * </ol>
+ * 청크 단위로 커밋하기 때문에 중간에 실패하면 이전 청크까지는 저장된 상태로 남습니다.
+ * 없는 팀은 "member-import-teams" 락을 잡고 다시 확인한 뒤 별도 트랜잭션으로 바로 커밋하므로, 동시에 등록해도 같은 이름의 팀을 두 번 만들지 않습니다.
+ * 이 락은 JVM 안에서만 유효하므로 여러 인스턴스가 동시에 등록하면 같은 이름의 팀이 생길 수 있습니다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final List<String> CSV_HEADER = Arrays.asList("username", "age", "teamname");
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate teamTransaction;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher publisher;
+    private final MemberImportProperties properties;
+    private final ThreadPoolTaskExecutor parsingExecutor;
+    private final Lock teamLock;
+
+    public MemberImportService(EntityManager em, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper, ApplicationEventPublisher publisher,
+                               MemberImportProperties properties, LockMetricsRegistry lockMetricsRegistry) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamTransaction = new TransactionTemplate(transactionManager);
+        this.teamTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.parsingExecutor = createParsingExecutor(properties.getParallelism());
+        this.teamLock = lockMetricsRegistry.lock("member-import-teams");
+    }
+
+    // 공용 ForkJoinPool 을 다른 작업과 나눠 쓰지 않도록 파싱 전용 풀을 둡니다.
+    // 요청 하나가 동시에 parallelism 개까지만 제출하므로, 여러 요청이 겹쳐 큐가 가득 차면 호출한 스레드에서 파싱합니다.
+    private static ThreadPoolTaskExecutor createParsingExecutor(int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism);
+        executor.setThreadNamePrefix("member-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsingExecutor.shutdown();
+    }
+
+    public MemberImportResult importMembers(InputStream in, MemberImportFormat format) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Long> teamIds = loadTeamIds();
+        long[] teamsCreated = new long[1];
+        long rows = 0;
+
+        Deque<CompletableFuture<List<MemberImportRow>>> parsing = new ArrayDeque<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>(properties.getChunkSize());
+            int firstLine = 1;
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && format == MemberImportFormat.CSV && isCsvHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == properties.getChunkSize()) {
+                    parsing.add(parseAsync(lines, firstLine, format));
+                    lines = new ArrayList<>(properties.getChunkSize());
+                    firstLine = lineNumber + 1;
+                }
+                if (parsing.size() >= properties.getParallelism()) {
+                    rows += save(await(parsing.poll()), teamIds, teamsCreated);
+                }
+            }
+            if (!lines.isEmpty()) {
+                parsing.add(parseAsync(lines, firstLine, format));
+            }
+            while (!parsing.isEmpty()) {
+                rows += save(await(parsing.poll()), teamIds, teamsCreated);
+            }
+        } finally {
+            parsing.forEach(future -> future.cancel(true));
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        MemberImportResult result = new MemberImportResult(rows, teamsCreated[0], elapsedMillis);
+        log.info("Imported {} members ({} new teams) in {} ms, {} rows/sec",
+                rows, result.getTeamsCreated(), elapsedMillis, (long) result.getRowsPerSecond());
+        return result;
+    }
+
+    // 첫 줄이 "username" 으로 시작하는 회원일 수도 있으므로 컬럼 이름이 모두 일치할 때만 헤더로 봅니다.
+    private static boolean isCsvHeader(String line) {
+        List<String> columns = new ArrayList<>();
+        for (String column : line.split(",", -1)) {
+            columns.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        return columns.equals(CSV_HEADER) || columns.equals(CSV_HEADER.subList(0, 2));
+    }
+
+    private CompletableFuture<List<MemberImportRow>> parseAsync(List<String> lines, int firstLine, MemberImportFormat format) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<MemberImportRow> rows = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (hasText(line)) {
+                    rows.add(parse(line, firstLine + i, format));
+                }
+            }
+            return rows;
+        }, parsingExecutor);
+    }
+
+    private MemberImportRow parse(String line, int lineNumber, MemberImportFormat format) {
+        try {
+            MemberImportRow row = format == MemberImportFormat.CSV ? parseCsv(line) : parseNdjson(line);
+            if (!hasText(row.getUsername())) {
+                throw new MemberImportException("username is required");
+            }
+            return row;
+        } catch (IOException | RuntimeException e) {
+            throw new MemberImportException("Invalid member at line " + lineNumber + ": " + line, e);
+        }
+    }
+
+    private MemberImportRow parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length < 2 || columns.length > 3) {
+            throw new MemberImportException("expected username,age[,teamName]");
+        }
+        String teamName = columns.length == 3 ? columns[2].trim() : null;
+        return new MemberImportRow(columns[0].trim(), Integer.parseInt(columns[1].trim()), teamName);
+    }
+
+    private MemberImportRow parseNdjson(String line) throws IOException {
+        return objectMapper.readValue(line, MemberImportRow.class);
+    }
+
+    private List<MemberImportRow> await(CompletableFuture<List<MemberImportRow>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    private long save(List<MemberImportRow> rows, Map<String, Long> teamIds, long[] teamsCreated) {
+        return transactionTemplate.execute(status -> {
+            MemberTeamChangeListener.publishBulkInsteadOfEntityEvents(publisher);
+            int count = 0;
+            for (MemberImportRow row : rows) {
+                // 생성자에서 changeTeam을 호출하면 팀 프록시의 members 컬렉션을 로딩하므로 팀은 setter로 연결합니다.
+                Member member = new Member(row.getUsername(), row.getAge());
+                if (hasText(row.getTeamName())) {
+                    member.setTeam(em.getReference(Team.class, resolveTeam(row.getTeamName(), teamIds, teamsCreated)));
+                }
+                em.persist(member);
+
+                if (++count % properties.getFlushSize() == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return (long) count;
+        });
+    }
+
+    private Long resolveTeam(String teamName, Map<String, Long> teamIds, long[] teamsCreated) {
+        Long teamId = teamIds.get(teamName);
+        if (teamId != null) {
+            return teamId;
+        }
+        // 다른 등록이 그 사이에 만들었을 수 있으므로 락을 잡고 커밋된 팀을 다시 찾습니다.
+        teamLock.lock();
+        try {
+            teamId = teamTransaction.execute(status -> {
+                List<Long> existing = em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+                        .setParameter("name", teamName)
+                        .setMaxResults(1)
+                        .getResultList();
+                if (!existing.isEmpty()) {
+                    return existing.get(0);
+                }
+                Team team = new Team(teamName);
+                em.persist(team);
+                teamsCreated[0]++;
+                return team.getId();
+            });
+        } finally {
+            teamLock.unlock();
+        }
+        teamIds.put(teamName, teamId);
+        return teamId;
+    }
+
+    private Map<String, Long> loadTeamIds() {
+        Map<String, Long> teamIds = new HashMap<>();
+        List<Object[]> teams = transactionTemplate.execute(status ->
+                em.createQuery("select t.name, t.id from Team t", Object[].class)
+                        .getResultList());
+        for (Object[] team : teams) {
+            teamIds.putIfAbsent((String) team[0], (Long) team[1]);
+        }
+        return teamIds;
+    }
+}
@@ -0,0 +1,176 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 캐시는 커밋된 데이터만 저장하기 때문에 이 테스트는 트랜잭션을 직접 커밋하고, 끝나면 데이터를 지웁니다.
+ */
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            return null;
+        });
+        memberSearchCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void cacheHit() throws Exception {
+        MemberSearchCondition condition = teamCondition("teamA");
+
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        long hits = memberSearchCache.stats().hitCount();
+        List<MemberTeamDto> second = memberJpaRepository.search(teamCondition("teamA"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(memberSearchCache.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void modifyingResultDoesNotChangeCache() throws Exception {
+        List<MemberTeamDto> first = memberJpaRepository.search(teamCondition("teamA"));
+        first.get(0).setUsername("changed");
+        first.clear();
+
+        assertThat(memberJpaRepository.search(teamCondition("teamA"))).extracting("username")
+                .containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void fillRacingWithEvictionIsNotKept() throws Exception {
+        MemberSearchCondition condition = teamCondition("teamA");
+
+        // 조회하는 동안 다른 트랜잭션이 커밋해서 캐시를 비운 상황입니다.
+        List<MemberTeamDto> stale = memberSearchCache.get(condition, () -> {
+            memberSearchCache.onMemberTeamChanged(MemberTeamChangedEvent.bulk());
+            return Collections.singletonList(new MemberTeamDto(1L, "stale", 10, 1L, "teamA"));
+        });
+
+        assertThat(stale).extracting("username").containsExactly("stale");
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void unrelatedChangeKeepsEntry() throws Exception {
+        memberJpaRepository.search(teamCondition("teamB"));
+
+        tx.execute(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            em.persist(new Member("member5", 50, teamA));
+            return null;
+        });
+
+        long hits = memberSearchCache.stats().hitCount();
+        assertThat(memberJpaRepository.search(teamCondition("teamB"))).extracting("username")
+                .containsExactly("member3", "member4");
+        assertThat(memberSearchCache.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void ageChangeEvictsMatchingCondition() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("member4");
+
+        tx.execute(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.setAge(36);
+            return null;
+        });
+
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member4");
+    }
+
+    @Test
+    public void teamChangeEvictsPreviousCondition() throws Exception {
+        assertThat(memberJpaRepository.search(teamCondition("teamA"))).hasSize(2);
+
+        tx.execute(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            Team teamB = em.createQuery("select t from Team t where t.name = 'teamB'", Team.class).getSingleResult();
+            member1.changeTeam(teamB);
+            return null;
+        });
+
+        assertThat(memberJpaRepository.search(teamCondition("teamA"))).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void bulkUpdateFlushesCache() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(100);
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+
+        tx.execute(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(100))
+                .execute());
+
+        assertThat(memberJpaRepository.search(condition)).hasSize(4);
+    }
+
+    private MemberSearchCondition teamCondition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
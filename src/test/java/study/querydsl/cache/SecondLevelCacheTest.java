@@ -0,0 +1,139 @@
+package study.querydsl.cache;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(SqlCapture.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    TransactionTemplate transactionTemplate;
+
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("cachedTeam");
+            em.persist(team);
+            Member member = new Member("cachedMember", 10, team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+        em.getEntityManagerFactory().getCache().evictAll();
+        sqlCapture.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.id = :id").setParameter("id", memberId).executeUpdate();
+            em.createQuery("delete from Team t where t.id = :id").setParameter("id", teamId).executeUpdate();
+        });
+    }
+
+    @Test
+    public void findAcrossTransactionsHitsCache() throws Exception {
+
+        //given
+        String name = transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+        assertThat(sqlCapture.selectsFrom("team")).hasSize(1);
+        sqlCapture.clear();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            String cachedName = transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+            assertThat(cachedName).isEqualTo(name);
+        }
+
+        //then
+        assertThat(sqlCapture.selectsFrom("team")).isEmpty();
+    }
+
+    @Test
+    public void lazyTeamIsLoadedFromCache() throws Exception {
+
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        sqlCapture.clear();
+
+        //when
+        String teamName = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+
+        //then
+        assertThat(teamName).isEqualTo("cachedTeam");
+        assertThat(sqlCapture.selectsFrom("team")).isEmpty();
+    }
+
+    @Test
+    public void updateRefreshesCache() throws Exception {
+
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId).setName("renamedTeam"));
+        sqlCapture.clear();
+
+        //when
+        String name = transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+
+        //then
+        assertThat(name).isEqualTo("renamedTeam");
+        assertThat(sqlCapture.selectsFrom("team")).isEmpty();
+    }
+
+    @Test
+    public void bulkUpdateEvictsRegion() throws Exception {
+
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Team t set t.name = 'bulkTeam' where t.id = :id")
+                        .setParameter("id", teamId)
+                        .executeUpdate());
+        sqlCapture.clear();
+
+        //when
+        String name = transactionTemplate.execute(status -> em.find(Team.class, teamId).getName());
+
+        //then
+        assertThat(name).isEqualTo("bulkTeam");
+        assertThat(sqlCapture.selectsFrom("team")).hasSize(1);
+    }
+
+    @Test
+    public void queryCacheAndStatisticsAreOffByDefault() throws Exception {
+
+        //when
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+
+        //then
+        assertThat(sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()).isTrue();
+        assertThat(sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()).isFalse();
+        assertThat(sessionFactory.getStatistics().isStatisticsEnabled()).isFalse();
+    }
+}
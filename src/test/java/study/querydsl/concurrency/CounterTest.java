@@ -0,0 +1,58 @@
+package study.querydsl.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CounterTest {
+
+    @Test
+    public void stripedCounterSumsAllThreads() throws Exception {
+        assertThat(countConcurrently(new StripedCounter())).isEqualTo(8 * 100_000);
+    }
+
+    @Test
+    public void lockedCounterSumsAllThreads() throws Exception {
+        assertThat(countConcurrently(new LockedCounter())).isEqualTo(8 * 100_000);
+    }
+
+    @Test
+    public void singleStripe() throws Exception {
+
+        //given
+        StripedCounter counter = new StripedCounter(1);
+
+        //when
+        counter.add(5);
+        counter.add(-2);
+
+        //then
+        assertThat(counter.sum()).isEqualTo(3);
+    }
+
+    private long countConcurrently(Counter counter) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100_000; j++) {
+                        counter.increment();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return counter.sum();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceAllocatorTest {
+
+    @Test
+    public void atomicAllocatorHandsOutUniqueValues() throws Exception {
+        AtomicInteger blocks = new AtomicInteger();
+        LongUnaryOperator source = countingSource(blocks);
+        verifyUnique(new AtomicSequenceAllocator(source, 100), blocks);
+    }
+
+    @Test
+    public void lockedAllocatorHandsOutUniqueValues() throws Exception {
+        AtomicInteger blocks = new AtomicInteger();
+        LongUnaryOperator source = countingSource(blocks);
+        verifyUnique(new LockedSequenceAllocator(source, 100), blocks);
+    }
+
+    @Test
+    public void valuesAreContiguousWithinBlock() throws Exception {
+
+        //given
+        SequenceAllocator allocator = new AtomicSequenceAllocator(SequenceAllocator.inMemoryBlockSource(1), 3);
+
+        //then
+        for (long expected = 1; expected <= 7; expected++) {
+            assertThat(allocator.next()).isEqualTo(expected);
+        }
+    }
+
+    private LongUnaryOperator countingSource(AtomicInteger blocks) {
+        LongUnaryOperator source = SequenceAllocator.inMemoryBlockSource(1);
+        return blockSize -> {
+            blocks.incrementAndGet();
+            return source.applyAsLong(blockSize);
+        };
+    }
+
+    // 8 스레드 * 10,000 개 = 80,000 개가 모두 달라야 하고, 블록은 정확히 800 번만 받아와야 합니다.
+    private void verifyUnique(SequenceAllocator allocator, AtomicInteger blocks) throws Exception {
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    values.add(allocator.next());
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(values).hasSize(80_000);
+        assertThat(blocks.get()).isEqualTo(800);
+    }
+}
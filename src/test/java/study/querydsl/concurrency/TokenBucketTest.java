@@ -0,0 +1,72 @@
+package study.querydsl.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    public void atomicTokenBucket() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        verifyBucket(new AtomicTokenBucket(10, 5, clock::get), clock);
+    }
+
+    @Test
+    public void lockedTokenBucket() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        verifyBucket(new LockedTokenBucket(10, 5, clock::get), clock);
+    }
+
+    // 용량 10, 초당 5개
+    private void verifyBucket(RateLimiter limiter, AtomicLong clock) {
+
+        // 처음에는 가득 차 있으므로 10개까지 한 번에 사용할 수 있습니다.
+        assertThat(acquireAll(limiter)).isEqualTo(10);
+
+        // 1초가 지나면 5개가 다시 채워집니다.
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(acquireAll(limiter)).isEqualTo(5);
+
+        // 오래 쉬어도 용량 이상으로는 쌓이지 않습니다.
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertThat(limiter.tryAcquire(11)).isFalse();
+        assertThat(limiter.tryAcquire(10)).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    private int acquireAll(RateLimiter limiter) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    @Test
+    public void concurrentAcquireNeverExceedsCapacity() throws Exception {
+        LongSupplier frozen = () -> 0L;
+        for (RateLimiter limiter : new RateLimiter[]{new AtomicTokenBucket(1000, 1, frozen), new LockedTokenBucket(1000, 1, frozen)}) {
+            AtomicLong acquired = new AtomicLong();
+            Thread[] threads = new Thread[8];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        if (limiter.tryAcquire()) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertThat(acquired.get()).isEqualTo(1000);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 스트리밍 응답은 다른 스레드에서 조회하기 때문에 이 테스트는 트랜잭션을 직접 커밋하고, 끝나면 데이터를 지웁니다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("member" + i, i, i < 20 ? teamA : teamB));
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void streamWritesOneJsonPerLine() throws Exception {
+
+        MvcResult started = mockMvc.perform(get("/v1/members/stream").param("teamName", "teamB").param("ageGoe", "28"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"username\":\"member28\"").contains("\"teamName\":\"teamB\"");
+        assertThat(lines[1]).contains("\"username\":\"member29\"");
+    }
+
+    @Test
+    public void sliceSizeBelowOneUsesDefault() throws Exception {
+
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(MemberController.DEFAULT_SLICE_SIZE)))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    public void sliceSizeIsClampedToMax() throws Exception {
+
+        // 제한이 없으면 size + 1 이 overflow 되어 limit 이 음수가 됩니다.
+        mockMvc.perform(get("/v4/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(30)))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+        // Base64 로는 올바르지만 id 가 아닌 경우 ("abc")
+        mockMvc.perform(get("/v4/members").param("cursor", "YWJj"))
+                .andExpect(status().isBadRequest());
+    }
+}
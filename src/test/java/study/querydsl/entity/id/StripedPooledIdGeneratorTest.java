@@ -0,0 +1,148 @@
+package study.querydsl.entity.id;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Member 에 설정된 생성기(member_seq, increment_size = 100)를 여러 스레드에서 직접 호출합니다.
+ * pooled-lo 시퀀스는 1부터 100씩 증가하므로 id 가 속한 블록은 (id - 1) / 100 입니다.
+ * 다른 테스트 컨텍스트가 뜨면서 스키마(시퀀스)를 다시 만들면, 캐시된 컨텍스트의 생성기에 남아있는 블록과 새 블록이 겹칠 수 있으므로
+ * 새 컨텍스트(새 생성기와 새 시퀀스)에서 실행합니다.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class StripedPooledIdGeneratorTest {
+
+    static final int INCREMENT_SIZE = 100;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    SessionFactoryImplementor sessionFactory;
+    StripedPooledIdGenerator generator;
+
+    @BeforeEach
+    public void before() {
+        sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        generator = (StripedPooledIdGenerator) sessionFactory.getIdentifierGenerator(Member.class.getName());
+    }
+
+    @Test
+    public void concurrentIdsAreUnique() throws Exception {
+
+        //given
+        // 스트라이프보다 스레드가 많아서 여러 스레드가 같은 스트라이프의 블록을 나눠 씁니다.
+        int threads = StripedPooledIdGenerator.stripeCount() * 4;
+        int idsPerThread = INCREMENT_SIZE * 5 + 7;
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<FutureTask<List<Long>>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(startGenerating(i % StripedPooledIdGenerator.stripeCount(), idsPerThread, start));
+        }
+        start.countDown();
+
+        //then
+        Set<Long> ids = new HashSet<>();
+        for (FutureTask<List<Long>> task : tasks) {
+            ids.addAll(task.get(30, TimeUnit.SECONDS));
+        }
+        assertThat(ids).hasSize(threads * idsPerThread);
+    }
+
+    @Test
+    public void threadsCrossingBlockBoundaryDoNotShareOrWasteBlocks() throws Exception {
+
+        //given
+        // 두 스트라이프에 스레드를 8개씩 두고 모두 동시에 블록 경계를 넘게 합니다.
+        int threadsPerStripe = 8;
+        int idsPerThread = INCREMENT_SIZE + INCREMENT_SIZE / 2;
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<FutureTask<List<Long>>> stripe0 = new ArrayList<>();
+        List<FutureTask<List<Long>>> stripe1 = new ArrayList<>();
+        for (int i = 0; i < threadsPerStripe; i++) {
+            stripe0.add(startGenerating(0, idsPerThread, start));
+            stripe1.add(startGenerating(1, idsPerThread, start));
+        }
+        start.countDown();
+
+        Set<Long> ids0 = collect(stripe0);
+        Set<Long> ids1 = collect(stripe1);
+
+        //then
+        int total = threadsPerStripe * idsPerThread;
+        assertThat(ids0).hasSize(total);
+        assertThat(ids1).hasSize(total);
+
+        // 한 블록은 한 스트라이프에서만 사용합니다.
+        Set<Long> blocks0 = blocks(ids0);
+        Set<Long> blocks1 = blocks(ids1);
+        assertThat(blocks0).doesNotContainAnyElementsOf(blocks1);
+
+        // 경계에서 여러 스레드가 동시에 다시 채워도 블록을 한 번만 예약합니다. (+1 은 앞의 테스트에서 쓰다 남은 블록)
+        int maxBlocks = total / INCREMENT_SIZE + 1;
+        assertThat(blocks0.size()).isLessThanOrEqualTo(maxBlocks);
+        assertThat(blocks1.size()).isLessThanOrEqualTo(maxBlocks);
+    }
+
+    // 스레드 id 로 스트라이프가 정해지므로 원하는 스트라이프에 해당하는 스레드를 만들어서 실행합니다.
+    private FutureTask<List<Long>> startGenerating(int stripe, int count, CountDownLatch start) {
+        FutureTask<List<Long>> task = new FutureTask<>(() -> {
+            start.await();
+            return generate(count);
+        });
+        Thread thread = new Thread(task);
+        while (StripedPooledIdGenerator.stripeIndex(thread) != stripe) {
+            thread = new Thread(task);
+        }
+        thread.start();
+        return task;
+    }
+
+    private List<Long> generate(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        try (Session session = sessionFactory.openSession()) {
+            for (int i = 0; i < count; i++) {
+                ids.add((Long) generator.generate((SharedSessionContractImplementor) session, null));
+            }
+        }
+        return ids;
+    }
+
+    private static Set<Long> collect(List<FutureTask<List<Long>>> tasks) throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (FutureTask<List<Long>> task : tasks) {
+            ids.addAll(task.get(30, TimeUnit.SECONDS));
+        }
+        return ids;
+    }
+
+    private static Set<Long> blocks(Set<Long> ids) {
+        Set<Long> blocks = new HashSet<>();
+        for (Long id : ids) {
+            blocks.add((id - 1) / INCREMENT_SIZE);
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() throws Exception {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("member" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+        assertThat(filter.isSaturated()).isFalse();
+    }
+
+    @Test
+    public void falsePositiveRateNearConfigured() throws Exception {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("member" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("nobody" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    public void saturatedAfterExpectedInsertions() throws Exception {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 200; i++) {
+            filter.add("member" + i);
+        }
+
+        assertThat(filter.isSaturated()).isTrue();
+    }
+}
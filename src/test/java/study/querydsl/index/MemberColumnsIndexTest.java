@@ -0,0 +1,163 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스는 커밋된 변경만 반영하기 때문에 이 테스트는 트랜잭션을 직접 커밋하고, 끝나면 데이터를 지웁니다.
+ */
+@SpringBootTest(properties = "query.member-index.enabled=true")
+class MemberColumnsIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            for (int i = 0; i < 40; i++) {
+                em.persist(new Member("member" + (i % 10), i, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("noTeam", 25, null));
+            return null;
+        });
+        memberSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void sameResultAsDatabase() throws Exception {
+        assertThat(memberSearchIndex.isReady()).isTrue();
+        assertThat(memberSearchIndex.size()).isEqualTo(41);
+
+        String[] usernames = {null, "", "member3", "nobody"};
+        String[] teamNames = {null, "", "teamA", "teamB", "teamC"};
+        Integer[][] ages = {{null, null}, {10, null}, {null, 20}, {15, 25}, {30, 10}};
+        for (String username : usernames) {
+            for (String teamName : teamNames) {
+                for (Integer[] age : ages) {
+                    MemberSearchCondition condition = condition(username, teamName, age[0], age[1]);
+                    assertThat(memberSearchIndex.search(condition))
+                            .as("username=%s, teamName=%s, age=%s..%s", username, teamName, age[0], age[1])
+                            .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void committedChangesAreApplied() throws Exception {
+        tx.execute(status -> {
+            Team teamA = new JPAQueryFactory(em).selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+
+            List<Member> member3 = new JPAQueryFactory(em).selectFrom(member).where(member.username.eq("member3")).fetch();
+            member3.get(0).setAge(100);
+            member3.get(1).changeTeam(teamC);
+            em.remove(member3.get(2));
+            em.persist(new Member("member3", 50, teamA));
+            teamA.setName("teamAA");
+            return null;
+        });
+
+        assertThat(memberSearchIndex.isReady()).isTrue();
+        assertThat(memberSearchIndex.size()).isEqualTo(41);
+        assertSameAsDatabase(condition("member3", null, null, null));
+        assertSameAsDatabase(condition(null, "teamAA", null, null));
+        assertSameAsDatabase(condition(null, "teamA", null, null));
+        assertSameAsDatabase(condition(null, "teamC", null, null));
+        assertSameAsDatabase(condition(null, null, 45, null));
+    }
+
+    @Test
+    public void rolledBackChangesAreIgnored() throws Exception {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).selectFrom(member).where(member.username.eq("member3")).fetch()
+                    .forEach(m -> m.setAge(100));
+
+            // 쓰기 트랜잭션 안에서는 flush 전 변경이 있을 수 있으므로 인덱스를 쓰지 않습니다.
+            assertThat(memberSearchIndex.isReady()).isFalse();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(memberSearchIndex.isReady()).isTrue();
+        assertThat(memberSearchIndex.search(condition(null, null, 100, null))).isEmpty();
+        assertSameAsDatabase(condition("member3", null, null, null));
+    }
+
+    @Test
+    public void searchUsesIndex() throws Exception {
+        // DB 에만 넣은 회원은 인덱스를 다시 만들기 전까지 검색되지 않습니다.
+        tx.execute(status -> em.createNativeQuery("insert into member (member_id, username, age) values (9999, 'hidden', 1)")
+                .executeUpdate());
+
+        assertThat(memberJpaRepository.search(condition("hidden", null, null, null))).isEmpty();
+
+        memberSearchIndex.rebuild();
+        List<MemberTeamDto> result = memberJpaRepository.search(condition("hidden", null, null, null));
+        assertThat(result).extracting(MemberTeamDto::getMemberId).containsExactly(9999L);
+
+        // 캐시 경로와 마찬가지로 수정할 수 없는 리스트를 돌려줍니다.
+        assertThatThrownBy(result::clear).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private void assertSameAsDatabase(MemberSearchCondition condition) {
+        assertThat(memberSearchIndex.search(condition))
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+    }
+
+    private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberFetchPlan;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 필터는 커밋된 회원명을 기준으로 동작하기 때문에 이 테스트는 트랜잭션을 직접 커밋하고, 끝나면 데이터를 지웁니다.
+ */
+@SpringBootTest(properties = "query.username-filter.enabled=true")
+class UsernameBloomFilterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    UsernameBloomFilter usernameBloomFilter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i));
+            }
+            return null;
+        });
+        usernameBloomFilter.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> new JPAQueryFactory(em).delete(member).execute());
+        usernameBloomFilter.rebuild();
+    }
+
+    @Test
+    public void missingUsernameSkipsDatabase() throws Exception {
+        double skipped = lookups("skipped");
+
+        assertThat(memberRepository.findByUsername("member1")).hasSize(1);
+        assertThat(memberJpaRepository.findByUsername("member2")).hasSize(1);
+        assertThat(memberJpaRepository.findByUsername_Querydsl("member3")).hasSize(1);
+        assertThat(memberRepository.findByUsername("nobody")).isEmpty();
+        assertThat(memberJpaRepository.findByUsername("nobody")).isEmpty();
+        assertThat(memberJpaRepository.findByUsername_Querydsl("nobody")).isEmpty();
+        assertThat(memberRepository.findByUsername("nobody", MemberFetchPlan.WITH_TEAM)).isEmpty();
+
+        assertThat(lookups("skipped")).isEqualTo(skipped + 4);
+    }
+
+    @Test
+    public void persistAndRenameAreAdded() throws Exception {
+        tx.execute(status -> {
+            em.persist(new Member("newMember", 10));
+            Member renamed = memberRepository.findByUsername("member1").get(0);
+            renamed.setUsername("renamed");
+            return null;
+        });
+
+        assertThat(memberRepository.findByUsername("newMember")).hasSize(1);
+        assertThat(memberRepository.findByUsername("renamed")).hasSize(1);
+        // 이전 이름은 필터에서 지울 수 없으므로 DB 까지 조회하고 오탐으로 셉니다.
+        double falsePositives = meterRegistry.get("username.filter.false.positives").functionCounter().count();
+        assertThat(memberRepository.findByUsername("member1")).isEmpty();
+        assertThat(meterRegistry.get("username.filter.false.positives").functionCounter().count())
+                .isEqualTo(falsePositives + 1);
+        assertThat(usernameBloomFilter.observedFalsePositiveRate()).isGreaterThan(0);
+    }
+
+    @Test
+    public void readWriteTransactionSeesUnflushedMember() throws Exception {
+        tx.execute(status -> {
+            em.persist(new Member("unflushed", 10));
+
+            assertThat(usernameBloomFilter.isUsable()).isFalse();
+            assertThat(memberRepository.findByUsername("unflushed")).hasSize(1);
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    @Test
+    public void bulkUpdateDisablesFilterUntilRebuilt() throws Exception {
+        tx.execute(status -> em.createQuery("update Member m set m.username = concat(m.username, '_bulk')").executeUpdate());
+
+        assertThat(memberRepository.findByUsername("member1_bulk")).hasSize(1);
+
+        usernameBloomFilter.rebuild();
+        assertThat(usernameBloomFilter.isUsable()).isTrue();
+        assertThat(memberRepository.findByUsername("member1_bulk")).hasSize(1);
+        assertThat(memberRepository.findByUsername("member1")).isEmpty();
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("username.filter.lookups").tag("result", result).functionCounter().count();
+    }
+}
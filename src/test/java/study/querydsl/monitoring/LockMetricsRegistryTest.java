@@ -0,0 +1,125 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import study.querydsl.concurrency.InstrumentedLock;
+import study.querydsl.config.LockMetricsProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockMetricsRegistryTest {
+
+    @Test
+    public void contentionRaisesWaitTimeAndQueueLength() throws Exception {
+
+        //given
+        LockMetricsRegistry registry = registry(1.0);
+
+        //when
+        hammer(registry.lock("uncontended"), 1, 40);
+        hammer(registry.lock("contended"), 8, 5);
+
+        //then
+        LockStats uncontended = registry.snapshot().get("uncontended");
+        LockStats contended = registry.snapshot().get("contended");
+        assertThat(uncontended.getSamples()).isEqualTo(40);
+        assertThat(contended.getSamples()).isEqualTo(40);
+
+        // 혼자 쓰면 기다리는 스레드가 없고, 8 개가 1ms 씩 잡으면 앞선 스레드들의 보유 시간만큼 기다립니다.
+        assertThat(uncontended.getQueueLength().getMax()).isEqualTo(0);
+        assertThat(contended.getQueueLength().getMax()).isGreaterThan(0);
+        assertThat(contended.getWaitMicros().getMean()).isGreaterThan(uncontended.getWaitMicros().getMean() * 10);
+        assertThat(contended.getWaitMicros().getMax()).isGreaterThan(1000);
+        assertThat(contended.getHoldMicros().getMean()).isGreaterThanOrEqualTo(1000);
+
+        // 버킷은 누적 건수이므로 마지막 버킷에 모든 샘플이 들어 있고, 1ms 씩 잡았으니 1ms 미만 버킷에는 보유 시간이 없고, 혼자 쓰면 대기열은 항상 0 이라 첫 버킷(1 이하)에만 들어갑니다.
+        assertThat(new ArrayList<>(contended.getWaitMicros().getBuckets().values())).isSorted().last().isEqualTo(40L);
+        assertThat(contended.getHoldMicros().getBuckets().keySet()).allMatch(upperBound -> upperBound >= 1000);
+        assertThat(uncontended.getQueueLength().getBuckets()).containsOnlyKeys(1.0);
+    }
+
+    @Test
+    public void onlySampledAcquisitionsAreRecorded() {
+
+        //given
+        LockMetricsRegistry none = registry(0);
+        LockMetricsRegistry tenth = registry(0.1);
+
+        //when
+        for (int i = 0; i < 10_000; i++) {
+            lockAndUnlock(none.lock("none"));
+            lockAndUnlock(tenth.lock("tenth"));
+        }
+
+        //then
+        assertThat(none.snapshot().get("none").getSamples()).isZero();
+        assertThat(tenth.snapshot().get("tenth").getSamples()).isBetween(500L, 1500L);
+    }
+
+    @Test
+    public void reentrantAcquisitionRecordsOutermostOnly() {
+
+        //given
+        LockMetricsRegistry registry = registry(1.0);
+        InstrumentedLock lock = registry.lock("reentrant");
+
+        //when
+        lock.lock();
+        lock.lock();
+        lock.unlock();
+        lock.unlock();
+
+        //then
+        LockStats stats = registry.snapshot().get("reentrant");
+        assertThat(stats.getWaitMicros().getCount()).isEqualTo(1);
+        assertThat(stats.getHoldMicros().getCount()).isEqualTo(1);
+        assertThat(registry.lock("reentrant")).isSameAs(lock);
+    }
+
+    private LockMetricsRegistry registry(double sampleRate) {
+        LockMetricsProperties properties = new LockMetricsProperties();
+        properties.setSampleRate(sampleRate);
+        return new LockMetricsRegistry(new SimpleMeterRegistry(), properties);
+    }
+
+    private void lockAndUnlock(InstrumentedLock lock) {
+        lock.lock();
+        lock.unlock();
+    }
+
+    // 스레드마다 락을 잡고 1ms 쉬는 일을 반복합니다.
+    private void hammer(InstrumentedLock lock, int threads, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        lock.lock();
+                        try {
+                            Thread.sleep(1);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
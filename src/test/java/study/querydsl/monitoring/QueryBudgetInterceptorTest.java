@@ -0,0 +1,200 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import study.querydsl.config.QueryBudgetProperties;
+
+import javax.servlet.DispatcherType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBudgetInterceptorTest {
+
+    static final String SELECT = "/* select member */ select m.id from member m where m.id=?";
+
+    QueryBudgetProperties properties = new QueryBudgetProperties();
+    QueryBudgetTracker tracker = new QueryBudgetTracker(properties);
+    QueryBudgetInterceptor interceptor = new QueryBudgetInterceptor(tracker);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    public void after() {
+        tracker.finish();
+    }
+
+    private MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern.replace("{id}", "1"));
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private RequestQueryContext begin(String method, String pattern) {
+        interceptor.preHandle(request(method, pattern), response, null);
+        return tracker.current();
+    }
+
+    @Test
+    public void tracksRequestByUrlPattern() throws Exception {
+
+        MockHttpServletRequest request = request("GET", "/v1/members/{id}");
+
+        interceptor.preHandle(request, response, null);
+        tracker.onStatement(tracker.current(), SELECT, 1);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertThat(tracker.current()).isNull();
+        EndpointQueryStats stats = tracker.getEndpointStats().get("GET /v1/members/{id}");
+        assertThat(stats.getRequests()).isEqualTo(1);
+        assertThat(stats.getStatements()).isEqualTo(1);
+    }
+
+    @Test
+    public void asyncRequestIsFinishedWhenConcurrentHandlingStarts() throws Exception {
+
+        MockHttpServletRequest request = request("GET", "/v1/members/stream");
+
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+        // 풀 스레드에 컨텍스트가 남지 않습니다.
+        assertThat(tracker.current()).isNull();
+        assertThat(tracker.getEndpointStats().get("GET /v1/members/stream").getRequests()).isEqualTo(1);
+
+        // 결과를 돌려주는 ASYNC 디스패치는 다시 집계하지 않습니다.
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        assertThat(tracker.current()).isNull();
+        interceptor.afterCompletion(request, response, null, null);
+        assertThat(tracker.getEndpointStats().get("GET /v1/members/stream").getRequests()).isEqualTo(1);
+    }
+
+    @Test
+    public void disabledEndpointIsNotTracked() throws Exception {
+
+        QueryBudgetProperties.EndpointBudget budget = new QueryBudgetProperties.EndpointBudget();
+        budget.setEnabled(false);
+        properties.getEndpoints().put("POST /v1/members/import", budget);
+
+        assertThat(begin("POST", "/v1/members/import")).isNull();
+    }
+
+    @Test
+    public void failModeStopsStatementOverBudget() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        properties.setMaxStatements(2);
+        RequestQueryContext context = begin("GET", "/v1/members");
+
+        tracker.onStatement(context, SELECT, 1);
+        tracker.onStatement(context, SELECT, 2);
+
+        assertThatThrownBy(() -> tracker.onStatement(context, SELECT, 3))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessage("[GET /v1/members] statement budget of 2 exceeded");
+    }
+
+    @Test
+    public void failModeStopsDuplicateStatement() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        RequestQueryContext context = begin("GET", "/v1/members");
+
+        tracker.onStatement(context, SELECT, 1);
+        // 주석과 공백만 다른 같은 모양의 SQL 도 같은 SQL 로 봅니다.
+        assertThatThrownBy(() -> tracker.onStatement(context, "select  m.id from member m where m.id=?", 1))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("duplicate statement");
+        assertThat(context.getDuplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void sameStatementWithDifferentValuesIsNotDuplicate() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        RequestQueryContext context = begin("POST", "/v1/members");
+
+        tracker.onStatement(context, "insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)", 1);
+        tracker.onStatement(context, "insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)", 2);
+
+        assertThat(context.getStatementCount()).isEqualTo(2);
+        assertThat(context.getDuplicateCount()).isZero();
+    }
+
+    @Test
+    public void sameShapeRepeatedWithDifferentValuesIsReported() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        properties.setMaxRepetitions(3);
+        MockHttpServletRequest request = request("GET", "/v1/members");
+        interceptor.preHandle(request, response, null);
+        RequestQueryContext context = tracker.current();
+
+        // 지연 로딩된 팀을 회원마다 따로 읽는 N+1 입니다. 값이 모두 달라서 중복은 아닙니다.
+        for (int teamId = 1; teamId <= 3; teamId++) {
+            tracker.onStatement(context, "select t.id, t.name from team t where t.id=?", teamId);
+        }
+        assertThatThrownBy(() -> tracker.onStatement(context, "select t.id, t.name from team t where t.id=?", 4))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("repeated more than 3 times");
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertThat(context.getDuplicateCount()).isZero();
+        EndpointQueryStats.RepeatedStatement repeated = tracker.getEndpointStats().get("GET /v1/members")
+                .getRepeatedStatements().get("select t.id, t.name from team t where t.id=?");
+        assertThat(repeated.getRequests()).isEqualTo(1);
+        assertThat(repeated.getMaxPerRequest()).isEqualTo(4);
+    }
+
+    @Test
+    public void sequenceAndDdlStatementsAreNotCounted() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        properties.setMaxStatements(1);
+        RequestQueryContext context = begin("POST", "/v1/members");
+
+        for (int i = 0; i < 3; i++) {
+            tracker.onStatement(context, "call next value for member_seq", 0);
+            tracker.onStatement(context, "/* sequence */ select next value for team_seq", 0);
+        }
+        tracker.onStatement(context, "create index idx_member_age on member (age)", 0);
+
+        assertThat(context.getStatementCount()).isZero();
+        assertThat(context.hasViolations()).isFalse();
+    }
+
+    @Test
+    public void endpointOverridesGlobalBudget() throws Exception {
+
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        properties.setMaxStatements(1);
+        QueryBudgetProperties.EndpointBudget budget = new QueryBudgetProperties.EndpointBudget();
+        budget.setMaxStatements(3);
+        budget.setDetectDuplicates(false);
+        properties.getEndpoints().put("GET /v3/members", budget);
+        RequestQueryContext context = begin("GET", "/v3/members");
+
+        tracker.onStatement(context, SELECT, 1);
+        tracker.onStatement(context, SELECT, 1);
+        tracker.onStatement(context, SELECT, 1);
+
+        assertThat(context.hasViolations()).isFalse();
+        assertThatThrownBy(() -> tracker.onStatement(context, SELECT, 1))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    public void logModeOnlyRecordsViolations() throws Exception {
+
+        properties.setMaxStatements(1);
+        RequestQueryContext context = begin("GET", "/v1/members");
+
+        tracker.onStatement(context, SELECT, 1);
+        tracker.onStatement(context, SELECT, 1);
+
+        assertThat(context.getViolations()).hasSize(2);
+    }
+}
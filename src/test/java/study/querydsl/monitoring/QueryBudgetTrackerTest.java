@@ -0,0 +1,114 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class QueryBudgetTrackerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    QueryBudgetTracker tracker;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        tracker.start("GET /test");
+    }
+
+    @AfterEach
+    public void after() {
+        tracker.finish();
+    }
+
+    @Test
+    public void searchRunsSingleStatement() throws Exception {
+
+        //when
+        memberRepository.search(new MemberSearchCondition());
+        RequestQueryContext context = tracker.finish();
+
+        //then
+        assertThat(context.getStatementCount()).isEqualTo(1);
+        assertThat(context.hasViolations()).isFalse();
+    }
+
+    @Test
+    public void repeatedStatementIsReported() throws Exception {
+
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        memberRepository.search(condition);
+        memberRepository.search(condition);
+        RequestQueryContext context = tracker.finish();
+
+        //then
+        assertThat(context.getStatementCount()).isEqualTo(2);
+        assertThat(context.getDuplicateCount()).isEqualTo(1);
+        assertThat(context.hasViolations()).isTrue();
+        assertThat(tracker.getEndpointStats().get("GET /test").getDuplicates()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void sameShapeWithDifferentValuesIsReportedAsRepetition() throws Exception {
+
+        //given
+        tracker.finish();
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("repeat" + i, 50, team));
+        }
+        em.flush();
+        em.clear();
+        // 2차 캐시에 팀이 있으면 select 가 나가지 않으므로 비웁니다.
+        emf.getCache().evictAll();
+        tracker.start("GET /test");
+
+        //when
+        // 회원마다 팀을 하나씩 읽는 N+1 입니다. (Team 의 @BatchSize 는 프록시 초기화에만 적용됩니다.)
+        List<Long> teamIds = em.createQuery("select m.team.id from Member m where m.username like 'repeat%'", Long.class)
+                .getResultList();
+        teamIds.forEach(teamId -> em.find(Team.class, teamId));
+        RequestQueryContext context = tracker.finish();
+
+        //then
+        assertThat(context.getStatementCount()).isEqualTo(7);
+        assertThat(context.getDuplicateCount()).isZero();
+        assertThat(context.getViolations()).anyMatch(violation -> violation.contains("repeated more than 5 times"));
+        assertThat(tracker.getEndpointStats().get("GET /test").getRepeatedStatements().keySet())
+                .anyMatch(fingerprint -> fingerprint.contains("from team"));
+    }
+}
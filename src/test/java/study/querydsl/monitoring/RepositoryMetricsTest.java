@@ -0,0 +1,152 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+@SpringBootTest
+class RepositoryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    RepositoryMetricsEndpoint endpoint;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordsLatencyRowsStatementsAndPersistenceContext() {
+
+        //given
+        long calls = invocations("MemberJpaRepository", "findAll", "n/a");
+
+        //when
+        List<Member> result = memberJpaRepository.findAll();
+
+        //then
+        assertThat(invocations("MemberJpaRepository", "findAll", "n/a")).isEqualTo(calls + 1);
+        assertThat(summary("repository.rows", "MemberJpaRepository", "findAll", "n/a").max()).isEqualTo(result.size());
+        assertThat(summary("repository.statements", "MemberJpaRepository", "findAll", "n/a").max()).isGreaterThanOrEqualTo(1);
+        // 테스트 트랜잭션의 영속성 컨텍스트에 조회한 회원이 모두 올라가 있습니다.
+        assertThat(summary("repository.persistence.context", "MemberJpaRepository", "findAll", "n/a").max())
+                .isGreaterThanOrEqualTo(result.size());
+    }
+
+    @Test
+    public void breaksDownBySetConditionFields() {
+
+        //given
+        MemberSearchCondition teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("teamB");
+        teamAndAge.setAgeGoe(35);
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setUsername("");
+
+        //when
+        List<MemberTeamDto> filtered = memberJpaRepository.searchByBuilder(teamAndAge);
+        memberJpaRepository.searchByBuilder(blankUsername);
+
+        //then
+        assertThat(filtered).extracting("username").containsExactly("member4");
+        assertThat(invocations("MemberJpaRepository", "searchByBuilder", "teamName+ageGoe")).isGreaterThanOrEqualTo(1);
+        assertThat(invocations("MemberJpaRepository", "searchByBuilder", "none")).isGreaterThanOrEqualTo(1);
+        assertThat(endpoint.repositories()).containsKeys(
+                "MemberJpaRepository.searchByBuilder[teamName+ageGoe]",
+                "MemberJpaRepository.searchByBuilder[none]");
+        // 지연 시간만 히스토그램 버킷을 가지고, 행 수 같은 요약값은 건수/평균/최대만 냅니다.
+        RepositoryMethodStats stats = endpoint.repositories().get("MemberJpaRepository.searchByBuilder[teamName+ageGoe]");
+        assertThat(stats.getLatencyMillis().getBuckets()).isNotEmpty();
+        assertThat(stats.getRows().getBuckets()).isEmpty();
+    }
+
+    @Test
+    public void recordsCustomFragmentAndSupportRepositories() {
+
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+
+        //when
+        Page<MemberTeamDto> page = memberRepository.searchPageSimple(condition, PageRequest.of(0, 2));
+        memberTestRepository.applyPagination(condition, PageRequest.of(0, 2));
+
+        //then
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(summary("repository.rows", "MemberRepositoryImpl", "searchPageSimple", "ageLoe").max()).isEqualTo(2);
+        assertThat(invocations("MemberTestRepository", "applyPagination", "ageLoe")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void failuresAreTaggedAsErrors() {
+
+        //when
+        assertThatThrownBy(() -> memberRepository.searchSlice(new MemberSearchCondition(), null, 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+
+        //then
+        assertThat(meterRegistry.get("repository.invocations")
+                .tags("repository", "MemberRepositoryImpl", "method", "searchSlice", "condition", "none", "outcome", "error")
+                .timer().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    // 다른 테스트와 MeterRegistry 를 같이 쓰므로 아직 기록되지 않은 메서드는 0 건으로 봅니다.
+    private long invocations(String repository, String method, String condition) {
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tags("repository", repository, "method", method, "condition", condition, "outcome", "success")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private DistributionSummary summary(String name, String repository, String method, String condition) {
+        return meterRegistry.get(name)
+                .tags("repository", repository, "method", method, "condition", condition)
+                .summary();
+    }
+}
@@ -0,0 +1,156 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.config.SlowQueryExplainProperties;
+import study.querydsl.entity.Coffee;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import javax.transaction.Transactional;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional
+@SpringBootTest(properties = {
+        "query.slow-explain.threshold=0ms",
+        "query.slow-explain.min-interval=0s",
+        "query.slow-explain.permits-per-second=1000",
+        "query.slow-explain.burst=1000"})
+class SlowQueryExplainerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SlowQueryExplainer explainer;
+
+    @Autowired
+    ObjectProvider<DataSource> dataSource;
+
+    @Autowired
+    ObjectProvider<LockMetricsRegistry> lockMetricsRegistry;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.flush();
+    }
+
+    @Test
+    public void capturesPlanWithBoundParameters() {
+
+        //when
+        em.createQuery("select m from Member m join m.team t where t.name = :teamName and m.age >= :age", Member.class)
+                .setParameter("teamName", "teamA")
+                .setParameter("age", 10)
+                .getResultList();
+
+        //then
+        List<SlowQueryPlan> plans = await(fingerprint -> fingerprint.contains("team1_.name=?"));
+        SlowQueryPlan plan = plans.get(0);
+        assertThat(plan.getSql()).contains("'teamA'");
+        assertThat(plan.getError()).isNull();
+        // H2 의 EXPLAIN ANALYZE 는 테이블마다 읽은 행 수를 주석으로 붙입니다.
+        assertThat(plan.getPlan()).contains("scanCount");
+        assertThat(lockMetricsRegistry.getObject().snapshot()).containsKey("slow-query-plans");
+    }
+
+    @Test
+    public void bindsParametersOfQuerydslQueryWithComments() {
+
+        //given
+        // 테스트 설정은 use_sql_comments 가 켜져 있어 SQL 앞에 ?1, ?2 가 든 JPQL 주석이 붙습니다.
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        //when
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"), member.age.between(5, 10))
+                .fetch();
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member1");
+        SlowQueryPlan plan = await(fingerprint -> fingerprint.contains("between ? and ?")).get(0);
+        assertThat(plan.getSql()).doesNotContain("/*");
+        assertThat(plan.getSql()).contains("name='teamA'", "between 5 and 10");
+        assertThat(plan.getError()).isNull();
+    }
+
+    @Test
+    public void ignoresOtherTablesAndDml() {
+
+        //given
+        em.persist(new Coffee("americano", 1000));
+        em.flush();
+
+        //when
+        em.createQuery("select c from Coffee c", Coffee.class).getResultList();
+        // 실행 계획은 한 스레드가 순서대로 남기므로 이 조회의 계획이 남았으면 앞의 SQL 도 처리된 것입니다.
+        em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", "ignoresOtherTablesAndDml")
+                .getResultList();
+
+        //then
+        await(fingerprint -> fingerprint.contains("member0_.username=?"));
+        assertThat(explainer.getPlans().keySet())
+                .noneMatch(fingerprint -> fingerprint.contains("coffee"))
+                .noneMatch(fingerprint -> fingerprint.startsWith("insert"));
+    }
+
+    @Test
+    public void rateLimitsExplains() {
+
+        //given
+        SlowQueryExplainProperties properties = new SlowQueryExplainProperties();
+        properties.setThreshold(Duration.ZERO);
+        properties.setBurst(1);
+        properties.setPermitsPerSecond(0.001);
+        SlowQueryExplainer limited = new SlowQueryExplainer(properties, dataSource, lockMetricsRegistry);
+
+        //when
+        try {
+            limited.onStatement("select * from member where age > 1", () -> "select * from member where age > 1", 1);
+            limited.onStatement("select * from team where name = 'a'", () -> "select * from team where name = 'a'", 1);
+            limited.onStatement("select * from member where username = 'a'", () -> "select * from member where username = 'a'", 1);
+        } finally {
+            limited.shutdown();
+        }
+
+        //then
+        assertThat(limited.getSkipped()).isEqualTo(2);
+    }
+
+    private List<SlowQueryPlan> await(Predicate<String> fingerprint) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            for (Map.Entry<String, List<SlowQueryPlan>> entry : explainer.getPlans().entrySet()) {
+                if (fingerprint.test(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new AssertionError("no plan captured");
+    }
+}
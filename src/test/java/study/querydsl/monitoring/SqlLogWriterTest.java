@@ -0,0 +1,126 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.config.SqlLogProperties;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+@SpringBootTest(properties = {
+        "query.sql-log.mode=sampled",
+        "query.sql-log.sample-rate=0",
+        "query.sql-log.slow-threshold=1h"})
+class SqlLogWriterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SqlLogWriter writer;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.flush();
+    }
+
+    @Test
+    public void fingerprintIgnoresLiteralsCommentsAndInListLength() {
+        String first = SqlFingerprint.of("/* select m from Member m */ select member0_.member_id as member_i1_1_\n"
+                + "  from member member0_ where member0_.username='member1' and member0_.age in (10, 20, 30)");
+        String second = SqlFingerprint.of("select member0_.member_id as member_i1_1_ from member member0_ "
+                + "where member0_.username='it''s' and member0_.age in (?, ?)");
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first).isEqualTo("select member0_.member_id as member_i1_1_ from member member0_ "
+                + "where member0_.username=? and member0_.age in (?...)");
+    }
+
+    @Test
+    public void aggregatesExecutedStatementsByFingerprint() {
+
+        //given
+        long before = executions(sql -> sql.contains("where member0_.username=?"));
+
+        //when
+        for (String username : new String[]{"member1", "member2", "member3"}) {
+            em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username)
+                    .getResultList();
+        }
+
+        //then
+        SqlFingerprintStats stats = await(sql -> sql.contains("where member0_.username=?"), before + 3);
+        assertThat(stats.getExecutions()).isEqualTo(before + 3);
+        // 샘플링 비율 0 이고 느린 SQL 도 없으므로 한 줄씩 남긴 로그는 없습니다.
+        assertThat(stats.getLogged()).isZero();
+    }
+
+    @Test
+    public void failedStatementsAreAlwaysLogged() {
+
+        //when
+        // 준비 단계가 아니라 실행 중에 실패해야 하므로 회원 이름을 숫자로 바꾸게 합니다.
+        assertThatThrownBy(() -> em.createNativeQuery("select cast(username as int) from member").getResultList())
+                .isInstanceOf(PersistenceException.class);
+
+        //then
+        SqlFingerprintStats stats = await(sql -> sql.contains("cast(username as int)"), 1);
+        assertThat(stats.getErrors()).isEqualTo(1);
+        assertThat(stats.getLogged()).isEqualTo(1);
+    }
+
+    @Test
+    public void dropsInsteadOfBlockingWhenBufferIsFull() {
+
+        //given
+        SqlLogProperties properties = new SqlLogProperties();
+        properties.setMode(SqlLogProperties.Mode.SAMPLED);
+        properties.setBufferSize(2);
+        SqlLogWriter stopped = new SqlLogWriter(properties);
+
+        //when
+        for (int i = 0; i < 5; i++) {
+            stopped.offer(new SqlLogEvent("select 1", null, 1000, false, null));
+        }
+
+        //then
+        assertThat(stopped.getDropped()).isEqualTo(3);
+    }
+
+    private long executions(Predicate<String> fingerprint) {
+        return find(fingerprint).map(SqlFingerprintStats::getExecutions).orElse(0L);
+    }
+
+    private Optional<SqlFingerprintStats> find(Predicate<String> fingerprint) {
+        return writer.getStats().stream()
+                .filter(stats -> fingerprint.test(stats.getFingerprint()))
+                .findFirst();
+    }
+
+    // 로그 스레드가 버퍼를 비울 때까지 기다립니다.
+    private SqlFingerprintStats await(Predicate<String> fingerprint, long executions) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executions(fingerprint) < executions && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return find(fingerprint).orElseThrow(() -> new AssertionError("no statement matched"));
+    }
+}
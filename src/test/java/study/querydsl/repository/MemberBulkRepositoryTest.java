@@ -0,0 +1,188 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.BulkOperationProperties;
+import study.querydsl.dto.BulkProgress;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    BulkOperationProperties properties;
+
+    TransactionTemplate transactionTemplate;
+
+    long originalChunkSize;
+
+    @BeforeEach
+    public void before() {
+        originalChunkSize = properties.getChunkSize();
+        properties.setChunkSize(10);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("bulk" + i, i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        properties.setChunkSize(originalChunkSize);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'bulk%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'bulkTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void updateInChunksAndReportProgress() throws Exception {
+
+        //given
+        List<BulkProgress> reported = new ArrayList<>();
+
+        //when
+        BulkProgress result = memberBulkRepository.update(
+                member.username.startsWith("bulk").and(member.age.lt(28)),
+                clause -> clause.set(member.age, member.age.add(100)),
+                reported::add);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(28);
+        assertThat(result.isDone()).isTrue();
+        assertThat(reported).hasSize((int) result.getTotalChunks());
+        assertThat(reported).extracting(BulkProgress::getChunksDone).isSorted();
+        Long updated = transactionTemplate.execute(status -> em
+                .createQuery("select count(m) from Member m where m.username like 'bulk%' and m.age >= 100", Long.class)
+                .getSingleResult());
+        assertThat(updated).isEqualTo(28);
+    }
+
+    @Test
+    public void evictsOnlyAffectedMembers() throws Exception {
+
+        transactionTemplate.executeWithoutResult(status -> {
+
+            //given
+            List<Member> members = em.createQuery("select m from Member m where m.username like 'bulk%'", Member.class)
+                    .getResultList();
+            Member young = members.stream().filter(m -> m.getAge() < 10).findFirst().get();
+            Member old = members.stream().filter(m -> m.getAge() >= 10).findFirst().get();
+
+            //when
+            BulkProgress result = memberBulkRepository.update(
+                    member.username.startsWith("bulk").and(member.age.lt(10)),
+                    clause -> clause.set(member.username, "bulkYoung"));
+
+            //then
+            assertThat(result.getRows()).isEqualTo(10);
+            assertThat(em.contains(young)).isFalse();
+            assertThat(em.contains(old)).isTrue();
+            assertThat(em.find(Member.class, young.getId()).getUsername()).isEqualTo("bulkYoung");
+        });
+    }
+
+    @Test
+    public void deleteThrottled() throws Exception {
+
+        //given
+        properties.setChunksPerSecond(50);
+
+        //when
+        BulkProgress result;
+        try {
+            result = memberBulkRepository.delete(member.username.startsWith("bulk").and(member.age.goe(40)));
+        } finally {
+            properties.setChunksPerSecond(0);
+        }
+
+        //then
+        assertThat(result.getRows()).isEqualTo(10);
+        Long remaining = transactionTemplate.execute(status -> em
+                .createQuery("select count(m) from Member m where m.username like 'bulk%'", Long.class)
+                .getSingleResult());
+        assertThat(remaining).isEqualTo(40);
+    }
+
+    @Test
+    public void noMatch() throws Exception {
+
+        //when
+        BulkProgress result = memberBulkRepository.delete(member.username.eq("nobody"));
+
+        //then
+        assertThat(result.getRows()).isZero();
+        assertThat(result.getTotalChunks()).isZero();
+    }
+
+    @Test
+    public void chunksBySizeNotByIdRange() throws Exception {
+
+        //given
+        List<BulkProgress> reported = new ArrayList<>();
+
+        //when
+        // 대상 id 가 띄엄띄엄 있어도 id 범위가 아니라 대상 건수로 청크를 나눕니다.
+        BulkProgress result = memberBulkRepository.delete(
+                member.username.startsWith("bulk").and(member.age.mod(2).eq(0)),
+                reported::add);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(25);
+        assertThat(result.getTotalChunks()).isEqualTo(3);
+        assertThat(result.isDone()).isTrue();
+        assertThat(reported).extracting(BulkProgress::getRows).containsExactly(10L, 20L, 25L);
+    }
+
+    @Test
+    public void teamConditionThroughAssociationPath() throws Exception {
+
+        //when
+        BulkProgress result = memberBulkRepository.update(
+                member.team.name.eq("bulkTeam").and(member.age.lt(15)),
+                clause -> clause.set(member.age, 0));
+
+        //then
+        assertThat(result.getRows()).isEqualTo(15);
+        assertThat(result.getTotalChunks()).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectsPathsFromOtherRoots() throws Exception {
+
+        //when, then
+        assertThatThrownBy(() -> memberBulkRepository.delete(team.name.eq("bulkTeam")))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("team");
+    }
+}
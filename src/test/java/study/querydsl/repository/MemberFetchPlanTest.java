@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+@Import(SqlCapture.class)
+class MemberFetchPlanTest {
+
+    // Team 의 @BatchSize(100) 보다 많이 잡아서 배치가 여러 번 나가게 합니다. 마지막 배치는 50개입니다.
+    private static final int TEAMS = 250;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < TEAMS; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 2; j++) {
+                em.persist(new Member(j == 0 ? "member" : "member" + i + "_" + j, j * 10, team));
+            }
+        }
+        em.flush();
+        em.clear();
+        // 2차 캐시에 남은 팀이 있으면 쿼리 수가 달라지므로 비웁니다.
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void memberPlanLoadsTeamsInBatches() throws Exception {
+
+        // 회원 1번 + 팀 ceil(250 / 100) = 3번
+        int expected = 1 + (TEAMS + 99) / 100;
+
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll())).isEqualTo(expected);
+        em.clear();
+        emf.getCache().evictAll();
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl())).isEqualTo(expected);
+        em.clear();
+        emf.getCache().evictAll();
+        assertThat(statementsToLoadTeams(() -> memberRepository.findByUsername("member"))).isEqualTo(expected);
+    }
+
+    @Test
+    public void withTeamPlanUsesSingleQuery() throws Exception {
+
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll(MemberFetchPlan.WITH_TEAM))).isEqualTo(1);
+        em.clear();
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findAll_Querydsl(MemberFetchPlan.WITH_TEAM))).isEqualTo(1);
+        em.clear();
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findByUsername("member", MemberFetchPlan.WITH_TEAM))).isEqualTo(1);
+        em.clear();
+        assertThat(statementsToLoadTeams(() -> memberJpaRepository.findByUsername_Querydsl("member", MemberFetchPlan.WITH_TEAM))).isEqualTo(1);
+        em.clear();
+        assertThat(statementsToLoadTeams(() -> memberRepository.findByUsername("member", MemberFetchPlan.WITH_TEAM))).isEqualTo(1);
+    }
+
+    // 회원을 조회하고 모든 팀 이름까지 읽는 동안 member, team 을 조회한 SQL 수를 셉니다.
+    private int statementsToLoadTeams(Supplier<List<Member>> finder) {
+        sqlCapture.clear();
+        List<Member> members = finder.get();
+        members.forEach(m -> m.getTeam().getName());
+
+        assertThat(members).hasSizeGreaterThanOrEqualTo(TEAMS);
+        return sqlCapture.selectsFrom("member").size() + sqlCapture.selectsFrom("team").size();
+    }
+}
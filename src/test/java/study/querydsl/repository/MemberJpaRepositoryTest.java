@@ -10,6 +10,7 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -83,5 +84,53 @@ class MemberJpaRepositoryTest {
 
      }
 
+    @Test
+    public void streamSearchTest() throws Exception {
+
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        List<MemberTeamDto> result = new ArrayList<>();
+        long count = memberJpaRepository.streamSearch(condition, result::add);
+
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void streamSearchKeepsCallerPersistenceContext() throws Exception {
+
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+
+        // 아직 flush 하지 않은 호출한 쪽의 변경
+        member1.setUsername("renamed");
+
+        //when
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.streamSearch(new MemberSearchCondition(), result::add);
+
+        //then
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(result).extracting("username").containsExactly("renamed");
+    }
+
 
 }
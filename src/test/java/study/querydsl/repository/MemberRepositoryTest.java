@@ -5,6 +5,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.CursorSlice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -122,6 +124,68 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void searchPageComplexCountCache() throws Exception {
+
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberSearchCondition sameCondition = new MemberSearchCondition();
+        sameCondition.setUsername("");
+
+        //when
+        Page<MemberTeamDto> first = memberRepository.searchPageComplex(condition, PageRequest.of(1, 1));
+        Page<MemberTeamDto> cached = memberRepository.searchPageComplex(sameCondition, PageRequest.of(2, 1));
+
+        em.persist(new Member("member4", 40, teamA));
+        em.flush();
+        Page<MemberTeamDto> invalidated = memberRepository.searchPageComplex(condition, PageRequest.of(1, 1));
+
+        //then
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(cached.getTotalElements()).isEqualTo(3);
+        assertThat(invalidated.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchSlice() throws Exception {
+
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        CursorSlice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 3);
+        CursorSlice<MemberTeamDto> second = memberRepository.searchSlice(condition, MemberCursor.decode(first.getNextCursor()), 3);
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     /**
      * 실무에서는 권장되지 않는 방법입니다.
      * 1. 서비스 계층이나 컨트롤러 계층에서 queydsl이라는 구현 기술에 대해 의존적이기 때문에 기술 교체 시 클라이언트 코드에 영향이 갈 수 있습니다.
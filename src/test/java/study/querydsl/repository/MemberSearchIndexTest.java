@@ -0,0 +1,130 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * H2 의 analyze 는 열린 트랜잭션을 커밋하므로 이 테스트는 데이터를 직접 커밋하고, 끝나면 지웁니다.
+ * JPQL 주석 안의 ?1 까지 p6spy가 값으로 치환하지 않도록 SQL 주석을 끕니다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.use_sql_comments=false")
+@Import(SqlCapture.class)
+class MemberSearchIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            for (int i = 0; i < 20; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                for (int j = 0; j < 20; j++) {
+                    em.persist(new Member("member" + (i * 20 + j), j * 5, team));
+                }
+            }
+            return null;
+        });
+        jdbcTemplate.execute("analyze");
+
+        // 캐시에서 반환하면 SQL 이 실행되지 않으므로 비웁니다.
+        memberSearchCache.invalidateAll();
+        sqlCapture.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void everyPredicateCombinationUsesIndex() throws Exception {
+
+        // username, teamName, ageGoe, ageLoe 의 모든 조합(16가지)을 확인합니다.
+        for (int mask = 0; mask < 16; mask++) {
+
+            //given
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((mask & 1) != 0) condition.setUsername("member42");
+            if ((mask & 2) != 0) condition.setTeamName("team2");
+            if ((mask & 4) != 0) condition.setAgeGoe(30);
+            if ((mask & 8) != 0) condition.setAgeLoe(40);
+
+            //when
+            sqlCapture.clear();
+            memberJpaRepository.search(condition);
+
+            //then
+            assertThat(sqlCapture.selectsFrom("member")).as("condition mask %d", mask).hasSize(1);
+            String plan = explain(sqlCapture.selectsFrom("member").get(0));
+
+            // 팀은 항상 PK 또는 team.name 인덱스로 찾아야 합니다.
+            assertThat(plan).as("condition mask %d: %s", mask, plan).doesNotContain("TEAM.TABLESCAN");
+            // 조건이 하나도 없으면 전체 조회이므로 member 테이블 스캔이 정상입니다.
+            if (mask != 0) {
+                assertThat(plan).as("condition mask %d: %s", mask, plan).doesNotContain("MEMBER.TABLESCAN");
+            }
+        }
+    }
+
+    @Test
+    public void teamNameUsesInnerJoin() throws Exception {
+
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team2");
+
+        //when
+        memberJpaRepository.search(condition);
+
+        //then
+        String sql = sqlCapture.selectsFrom("member").get(0).toLowerCase();
+        assertThat(sql).contains("inner join team");
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class)).toUpperCase();
+    }
+}
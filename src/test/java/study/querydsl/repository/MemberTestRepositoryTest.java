@@ -0,0 +1,170 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional
+@SpringBootTest
+@Import(SqlCapture.class)
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    TransactionTemplate tx;
+
+    // 테스트 트랜잭션이 있으면 참여해서 롤백되고, 없으면(NOT_SUPPORTED) 커밋되므로 끝나면 데이터를 지웁니다.
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> persistMembers());
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+        });
+    }
+
+    private void persistMembers() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+    }
+
+    @Test
+    public void explicitCountQueryIsNotOptimized() throws Exception {
+
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        sqlCapture.clear();
+
+        //when
+        // 첫 페이지가 가득 차므로 count 쿼리가 실행됩니다.
+        Page<Member> derived = memberTestRepository.applyPagination(condition, PageRequest.of(0, 3));
+        List<String> derivedCount = countStatements();
+        sqlCapture.clear();
+        Page<Member> explicit = memberTestRepository.applyPagination2(condition, PageRequest.of(0, 3));
+        List<String> explicitCount = countStatements();
+
+        //then
+        assertThat(derived.getTotalElements()).isEqualTo(4);
+        assertThat(explicit.getTotalElements()).isEqualTo(4);
+        // 콘텐츠 쿼리에서 만든 count 쿼리는 쓰지 않는 left join 을 지우고, 직접 작성한 count 쿼리는 그대로 둡니다.
+        assertThat(derivedCount).hasSize(1);
+        assertThat(derivedCount.get(0)).doesNotContain("join");
+        assertThat(explicitCount).hasSize(1);
+        assertThat(explicitCount.get(0)).contains("left outer join team");
+    }
+
+    private List<String> countStatements() {
+        return sqlCapture.selectsFrom("member").stream()
+                .filter(sql -> sql.toLowerCase().contains("count("))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void applySlice() throws Exception {
+
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Slice<Member> first = memberTestRepository.applySlice(condition, PageRequest.of(0, 3, Sort.by("age")));
+        Slice<Member> second = memberTestRepository.applySlice(condition, PageRequest.of(1, 3, Sort.by("age")));
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    /**
+     * 리포지토리의 읽기 전용 트랜잭션과 읽기 전용 쿼리 힌트를 실제로 커밋하면서 확인하기 위해 테스트 트랜잭션 없이 실행합니다.
+     */
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void readOnlyQueryDoesNotTrackChanges() throws Exception {
+
+        //given
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        //when
+        // 읽기 전용 트랜잭션: 세션이 FlushMode.MANUAL 이 되어 커밋할 때 flush 하지 않습니다.
+        FlushMode readOnlyFlushMode = readOnlyTx.execute(status -> {
+            List<Member> members = memberTestRepository.basicSelectFrom();
+            Session session = em.unwrap(Session.class);
+            assertThat(members).allMatch(session::isReadOnly);
+            members.forEach(m -> m.setAge(99));
+            return session.getHibernateFlushMode();
+        });
+
+        // 읽기/쓰기 트랜잭션: 커밋할 때 flush 하지만, 읽기 전용으로 조회한 엔티티는 변경 감지를 하지 않습니다.
+        FlushMode readWriteFlushMode = tx.execute(status -> {
+            List<Member> members = memberTestRepository.basicSelectFrom();
+            Session session = em.unwrap(Session.class);
+            assertThat(members).allMatch(session::isReadOnly);
+            members.forEach(m -> m.setAge(99));
+            return session.getHibernateFlushMode();
+        });
+
+        //then
+        assertThat(readOnlyFlushMode).isEqualTo(FlushMode.MANUAL);
+        assertThat(readWriteFlushMode).isEqualTo(FlushMode.AUTO);
+
+        List<Integer> ages = tx.execute(status ->
+                em.createQuery("select m.age from Member m order by m.age", Integer.class).getResultList());
+        assertThat(ages).containsExactly(10, 20, 30, 40);
+    }
+}
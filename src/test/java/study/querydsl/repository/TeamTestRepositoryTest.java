@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryBudgetTracker;
+import study.querydsl.monitoring.RequestQueryContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class TeamTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamTestRepository teamTestRepository;
+
+    @Autowired
+    QueryBudgetTracker tracker;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 30; i++) {
+            Team team = new Team(String.format("team%02d", i));
+            em.persist(team);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        tracker.finish();
+    }
+
+    @Test
+    public void findTeamsWithMembers() throws Exception {
+
+        //given
+        PageRequest pageRequest = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "name"));
+
+        //when
+        tracker.start("teams with members");
+        Page<Team> result = teamTestRepository.findTeamsWithMembers(pageRequest);
+        RequestQueryContext context = tracker.finish();
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(30);
+        assertThat(result.getContent()).extracting("name")
+                .containsExactly("team19", "team18", "team17", "team16", "team15",
+                        "team14", "team13", "team12", "team11", "team10");
+        for (Team team : result.getContent()) {
+            assertThat(emf.getPersistenceUnitUtil().isLoaded(team, "members")).isTrue();
+            assertThat(team.getMembers()).hasSize(3);
+        }
+        // id 페이징, count, 페치 조인 쿼리
+        assertThat(context.getStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void lastPageWithoutCount() throws Exception {
+
+        //when
+        Page<Team> result = teamTestRepository.findTeamsWithMembers(PageRequest.of(0, 50));
+
+        //then
+        assertThat(result.getContent()).hasSize(30);
+        assertThat(result.getTotalElements()).isEqualTo(30);
+    }
+}
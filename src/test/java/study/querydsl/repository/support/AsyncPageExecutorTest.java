@@ -0,0 +1,155 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import study.querydsl.config.AsyncPagingProperties;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AsyncPageExecutorTest {
+
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    AsyncPageExecutor executor;
+
+    @AfterEach
+    public void after() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private AsyncPageExecutor executor(boolean enabled, Duration timeout) {
+        AsyncPagingProperties properties = new AsyncPagingProperties();
+        properties.setEnabled(enabled);
+        properties.setPoolSize(2);
+        properties.setTimeout(timeout);
+        executor = new AsyncPageExecutor(transactionManager, properties);
+        return executor;
+    }
+
+    @Test
+    public void runsContentAndCountConcurrently() throws Exception {
+
+        AsyncPageExecutor executor = executor(true, Duration.ofSeconds(5));
+        CountDownLatch countStarted = new CountDownLatch(1);
+
+        // 콘텐츠 쿼리는 count 쿼리가 시작될 때까지 기다리므로, 순서대로 실행되면 timeout 이 납니다.
+        Page<String> page = executor.getPage(PageRequest.of(0, 2), () -> {
+            await(countStarted);
+            return Arrays.asList("member1", "member2");
+        }, () -> {
+            countStarted.countDown();
+            return 5L;
+        });
+
+        assertThat(page.getContent()).containsExactly("member1", "member2");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void doesNotWaitForCountWhenFirstPageIsShort() throws Exception {
+
+        AsyncPageExecutor executor = executor(true, Duration.ofMillis(200));
+        CountDownLatch releaseCount = new CountDownLatch(1);
+
+        // count 를 기다렸다면 timeout 이 났을 것입니다.
+        Page<String> page = executor.getPage(PageRequest.of(0, 10), () -> Arrays.asList("member1", "member2"), () -> {
+            await(releaseCount);
+            return 100L;
+        });
+        releaseCount.countDown();
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void skipsQueuedCountWhenContentFails() throws Exception {
+
+        AsyncPagingProperties properties = new AsyncPagingProperties();
+        properties.setEnabled(true);
+        properties.setPoolSize(1);
+        properties.setTimeout(Duration.ofMillis(200));
+        executor = new AsyncPageExecutor(transactionManager, properties);
+        AtomicInteger countCalls = new AtomicInteger();
+        CountDownLatch releaseContent = new CountDownLatch(1);
+
+        // 스레드가 하나라서 count 는 콘텐츠 쿼리 뒤에서 대기하다가 취소됩니다.
+        assertThatThrownBy(() -> executor.getPage(PageRequest.of(0, 10), () -> {
+            await(releaseContent);
+            return Arrays.<String>asList();
+        }, () -> {
+            countCalls.incrementAndGet();
+            return 0L;
+        })).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out");
+        releaseContent.countDown();
+
+        // 큐는 순서대로 처리되므로 다음 조회가 끝났으면 취소된 count 도 이미 큐에서 빠졌습니다.
+        executor.getPage(PageRequest.of(0, 10), () -> Arrays.asList("member1"), () -> 1L);
+
+        assertThat(countCalls.get()).isZero();
+    }
+
+    @Test
+    public void timesOutSlowContentQuery() throws Exception {
+
+        AsyncPageExecutor executor = executor(true, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> executor.getPage(PageRequest.of(0, 10), () -> {
+            await(release);
+            return Arrays.<String>asList();
+        }, () -> 0L)).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out after PT0.1S");
+        release.countDown();
+    }
+
+    @Test
+    public void appliesTimeoutToReadOnlyTransactions() throws Exception {
+
+        AsyncPageExecutor executor = executor(true, Duration.ofMillis(1500));
+
+        executor.getPage(PageRequest.of(0, 10), () -> Arrays.asList("member1"), () -> 1L);
+
+        // 쿼리 타임아웃은 초 단위로 올림되어 트랜잭션 안의 쿼리에 적용됩니다.
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+        assertThat(definition.getValue().getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThat(definition.getValue().getTimeout()).isEqualTo(2);
+    }
+
+    @Test
+    public void disabledExecutorHasNoPool() throws Exception {
+
+        AsyncPageExecutor executor = executor(false, Duration.ofSeconds(5));
+
+        assertThat(executor.isEnabled()).isFalse();
+        assertThatThrownBy(() -> executor.getPage(PageRequest.of(0, 10), () -> Arrays.<String>asList(), () -> 0L))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional
+@SpringBootTest
+@Import(SqlCapture.class)
+class CountQueryOptimizerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        sqlCapture.clear();
+    }
+
+    @Test
+    public void unusedLeftJoinAndOrderByAreRemoved() throws Exception {
+
+        //given
+        JPAQuery<MemberTeamDto> contentQuery = memberTeamQuery()
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc());
+
+        //when
+        long count = CountQueryOptimizer.optimize(em, contentQuery).fetchCount();
+
+        //then
+        assertThat(count).isEqualTo(3);
+        assertThat(sqlCapture.getStatements()).hasSize(1);
+        String sql = sqlCapture.getStatements().get(0).toLowerCase();
+        assertThat(sql).contains("count(member0_.member_id)");
+        assertThat(sql).doesNotContain("join");
+        assertThat(sql).doesNotContain("order by");
+        assertThat(sql).doesNotContain("username");
+    }
+
+    @Test
+    public void referencedLeftJoinIsKept() throws Exception {
+
+        //given
+        JPAQuery<MemberTeamDto> contentQuery = memberTeamQuery()
+                .where(team.name.eq("teamB"));
+
+        //when
+        long count = CountQueryOptimizer.optimize(em, contentQuery).fetchCount();
+
+        //then
+        assertThat(count).isEqualTo(2);
+        String sql = sqlCapture.getStatements().get(0).toLowerCase();
+        assertThat(sql).contains("left outer join team");
+    }
+
+    @Test
+    public void fetchJoinIsRemoved() throws Exception {
+
+        //given
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.eq("member1"));
+
+        //when
+        long count = CountQueryOptimizer.optimize(em, contentQuery).fetchCount();
+
+        //then
+        assertThat(count).isEqualTo(1);
+        String sql = sqlCapture.getStatements().get(0).toLowerCase();
+        assertThat(sql).doesNotContain("join");
+    }
+
+    @Test
+    public void innerJoinIsKept() throws Exception {
+
+        //given
+        em.persist(new Member("memberWithoutTeam", 50));
+        em.flush();
+        sqlCapture.clear();
+
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .join(member.team, team);
+
+        //when
+        long count = CountQueryOptimizer.optimize(em, contentQuery).fetchCount();
+
+        //then
+        assertThat(count).isEqualTo(4);
+        String sql = sqlCapture.getStatements().get(0).toLowerCase();
+        assertThat(sql).contains("inner join team");
+    }
+
+    private JPAQuery<MemberTeamDto> memberTeamQuery() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+}
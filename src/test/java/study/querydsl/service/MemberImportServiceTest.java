@@ -0,0 +1,264 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamChangedEvent;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 청크마다 커밋되는지 확인하기 위해 테스트 트랜잭션 없이 실행하고, 끝나면 데이터를 지웁니다.
+ * 청크(6건)와 flush(3건) 단위를 작게 잡아 한 번의 등록이 여러 청크와 배치로 나뉘도록 합니다.
+ */
+@SpringBootTest(properties = {
+        "member.import.chunk-size=6",
+        "member.import.flush-size=3",
+        "query.second-level-cache.statistics=true"
+})
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    List<MemberTeamChangedEvent> events;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            new JPAQueryFactory(em).delete(member).execute();
+            new JPAQueryFactory(em).delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void importCsv() throws Exception {
+
+        //given
+        tx.execute(status -> {
+            em.persist(new Team("teamA"));
+            return null;
+        });
+
+        String csv = "username,age,teamName\n" +
+                "member1,10,teamA\n" +
+                "member2,20,teamB\n" +
+                "\n" +
+                "member3,30,teamB\n" +
+                "member4,40,\n";
+
+        //when
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportFormat.CSV);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getTeamsCreated()).isEqualTo(1);
+
+        List<Member> members = tx.execute(status ->
+                em.createQuery("select m from Member m left join fetch m.team order by m.username", Member.class)
+                        .getResultList());
+        assertThat(members).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(members).extracting(member -> member.getTeam() == null ? null : member.getTeam().getName())
+                .containsExactly("teamA", "teamB", "teamB", null);
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+
+        //given
+        String ndjson = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamA\"}\n" +
+                "{\"username\":\"member2\",\"age\":20,\"teamName\":\"teamA\"}\n";
+
+        //when
+        MemberImportResult result = memberImportService.importMembers(stream(ndjson), MemberImportFormat.NDJSON);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(countTeams("teamA")).isEqualTo(1);
+    }
+
+    @Test
+    public void insertsAreBatched() throws Exception {
+
+        //given
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 36; i++) {
+            csv.append("member").append(i).append(',').append(i).append(",teamA\n");
+        }
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        memberImportService.importMembers(stream(csv.toString()), MemberImportFormat.CSV);
+
+        //then
+        // JDBC 배치는 flush 마다 insert 문을 한 번만 준비합니다. 배치가 아니면 insert 마다 준비합니다.
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(37);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(statistics.getEntityInsertCount() / 2);
+        // 청크(6건)마다 커밋합니다.
+        assertThat(statistics.getSuccessfulTransactionCount()).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    public void failedChunkKeepsEarlierChunks() throws Exception {
+
+        //given
+        // 청크 1: 1~6행(teamA), 청크 2: 7~12행(teamB, 8행이 잘못됨)
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 12; i++) {
+            csv.append("member").append(i).append(',').append(i == 8 ? "abc" : String.valueOf(i))
+                    .append(i <= 6 ? ",teamA\n" : ",teamB\n");
+        }
+
+        //when
+        assertThatThrownBy(() -> memberImportService.importMembers(stream(csv.toString()), MemberImportFormat.CSV))
+                .isInstanceOf(MemberImportException.class)
+                .hasMessageContaining("line 8");
+
+        //then
+        List<String> usernames = tx.execute(status ->
+                em.createQuery("select m.username from Member m order by m.age", String.class).getResultList());
+        assertThat(usernames).containsExactly("member1", "member2", "member3", "member4", "member5", "member6");
+        assertThat(countTeams("teamB")).isZero();
+    }
+
+    @Test
+    public void firstRowLikeHeaderIsImported() throws Exception {
+
+        //when
+        MemberImportResult result = memberImportService.importMembers(
+                stream("usernameA,10,teamA\nmember2,20,teamA\n"), MemberImportFormat.CSV);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(2);
+        List<String> usernames = tx.execute(status ->
+                em.createQuery("select m.username from Member m order by m.age", String.class).getResultList());
+        assertThat(usernames).containsExactly("usernameA", "member2");
+    }
+
+    @Test
+    public void publishesOneBulkEventPerChunk() throws Exception {
+
+        //given
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            csv.append("member").append(i).append(',').append(i).append(",teamA\n");
+        }
+        events.clear();
+
+        //when
+        memberImportService.importMembers(stream(csv.toString()), MemberImportFormat.CSV);
+
+        //then
+        // 청크(6건) 2개에 BULK 하나씩, 새 팀은 첫 청크 트랜잭션 안에서 만들어지므로 따로 발행하지 않습니다.
+        assertThat(events).extracting(MemberTeamChangedEvent::getType)
+                .containsExactly(MemberTeamChangedEvent.Type.BULK, MemberTeamChangedEvent.Type.BULK);
+    }
+
+    @Test
+    public void concurrentImportsCreateTeamOnce() throws Exception {
+
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MemberImportResult>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String csv = "import" + i + "_1,10,newTeam\nimport" + i + "_2,20,newTeam\n";
+            results.add(executor.submit(() -> {
+                start.await();
+                return memberImportService.importMembers(stream(csv), MemberImportFormat.CSV);
+            }));
+        }
+
+        //when
+        start.countDown();
+        long teamsCreated = 0;
+        try {
+            for (Future<MemberImportResult> result : results) {
+                teamsCreated += result.get(30, TimeUnit.SECONDS).getTeamsCreated();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        assertThat(teamsCreated).isEqualTo(1);
+        assertThat(countTeams("newTeam")).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidLine() throws Exception {
+        assertThatThrownBy(() -> memberImportService.importMembers(stream("member1,10,teamA\nmember2,abc,teamA\n"), MemberImportFormat.CSV))
+                .isInstanceOf(MemberImportException.class)
+                .hasMessageContaining("line 2");
+    }
+
+    @TestConfiguration
+    static class EventRecorder {
+
+        private final List<MemberTeamChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @Bean
+        List<MemberTeamChangedEvent> events() {
+            return events;
+        }
+
+        @EventListener
+        public void onMemberTeamChanged(MemberTeamChangedEvent event) {
+            events.add(event);
+        }
+    }
+
+    private long countTeams(String name) {
+        return tx.execute(status -> em.createQuery("select count(t) from Team t where t.name = :name", Long.class)
+                .setParameter("name", name)
+                .getSingleResult());
+    }
+
+    private ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
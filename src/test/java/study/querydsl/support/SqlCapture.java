@@ -0,0 +1,60 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * p6spy를 통해 실제로 실행된 SQL을 수집합니다.
+ * 테스트 클래스에 @Import(SqlCapture.class) 로 빈을 등록하면 p6spy 리스너로 함께 등록됩니다.
+ */
+public class SqlCapture extends SimpleJdbcEventListener {
+
+    private final List<Captured> statements = new CopyOnWriteArrayList<>();
+
+    // 같은 PreparedStatement 를 다시 실행하면 바인딩 값이 바뀌므로 실행 시점의 SQL 을 문자열로 남겨둡니다.
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        statements.add(new Captured(statementInformation.getSql(), statementInformation.getSqlWithValues()));
+    }
+
+    /**
+     * @return 바인딩 값이 들어가기 전의 SQL
+     */
+    public List<String> getStatements() {
+        return statements.stream()
+                .map(captured -> captured.sql)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return table 을 조회한 select 문, EXPLAIN 에 그대로 사용할 수 있도록 바인딩 값을 채운 형태입니다.
+     */
+    public List<String> selectsFrom(String table) {
+        return statements.stream()
+                .map(captured -> captured.sqlWithValues)
+                .filter(sql -> {
+                    String lower = sql.toLowerCase();
+                    return lower.contains("select") && lower.contains("from " + table);
+                })
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    private static final class Captured {
+        private final String sql;
+        private final String sqlWithValues;
+
+        private Captured(String sql, String sqlWithValues) {
+            this.sql = sql;
+            this.sqlWithValues = sqlWithValues;
+        }
+    }
+}